@@ -0,0 +1,57 @@
+package socialmedia.benchmarks;
+
+import socialmedia.BadMiniSocialMedia;
+import socialmedia.HandleNotRecognisedException;
+import socialmedia.IllegalHandleException;
+import socialmedia.InvalidHandleException;
+import socialmedia.SocialMediaPlatform;
+
+/**
+ * BaselineSocialMedia is the harness baseline for the benchmarks: it extends
+ * BadMiniSocialMedia, whose methods do nothing, with the rest of the
+ * SocialMediaPlatform interface done the same way.
+ * <p>
+ * A benchmark run against it measures only the cost of the harness itself,
+ * calling through the interface and picking handles and post IDs, which is
+ * then part of every result for the real platforms.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class BaselineSocialMedia extends BadMiniSocialMedia implements SocialMediaPlatform {
+
+	@Override
+	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		return 0;
+	}
+
+	@Override
+	public void removeAccount(String handle) throws HandleNotRecognisedException {
+	}
+
+	@Override
+	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+	}
+
+	@Override
+	public int getNumberOfAccounts() {
+		return 0;
+	}
+
+	@Override
+	public int getTotalOriginalPosts() {
+		return 0;
+	}
+
+	@Override
+	public int getTotalEndorsmentPosts() {
+		return 0;
+	}
+
+	@Override
+	public int getTotalCommentPosts() {
+		return 0;
+	}
+
+}
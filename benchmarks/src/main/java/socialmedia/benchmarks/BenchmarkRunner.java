@@ -0,0 +1,38 @@
+package socialmedia.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner runs the benchmarks with the usual JMH command line options,
+ * always adding the GC profiler so that every result comes with the bytes
+ * allocated per operation and the allocation rate.
+ * <p>
+ * Usage: <code>java -jar benchmarks/target/benchmarks.jar [JMH options]</code>,
+ * for example <code>-p posts=1000,100000 ReadBenchmarks</code> to run only the
+ * reads against two sizes.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+	/**
+	* Runs the benchmarks chosen on the command line, all of them by default.
+	*
+	* @param args JMH command line options.
+	* @throws Exception if the options are not valid or the benchmarks fail.
+	*/
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+
+}
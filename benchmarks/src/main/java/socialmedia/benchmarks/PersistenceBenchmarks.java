@@ -0,0 +1,38 @@
+package socialmedia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PersistenceBenchmarks measures saving the whole platform to a snapshot file
+ * and loading it back.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PersistenceBenchmarks {
+
+	@Benchmark
+	public void savePlatform(PlatformState state, SnapshotState snapshot) throws Exception {
+		state.platform.savePlatform(snapshot.filename);
+	}
+
+	@Benchmark
+	public void loadPlatform(PlatformState state, SnapshotState snapshot) throws Exception {
+		state.platform.loadPlatform(snapshot.filename);
+	}
+
+}
@@ -0,0 +1,150 @@
+package socialmedia.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import socialmedia.ColumnarPostStore;
+import socialmedia.ConcurrentSocialMedia;
+import socialmedia.SocialMedia;
+import socialmedia.SocialMediaPlatform;
+
+/**
+ * PlatformState is a platform filled with a given number of posts for the
+ * benchmarks to act on, built the same way every time.
+ * <p>
+ * There is one account for every 20 posts, and at least 1000. Of the posts, 60%
+ * are originals, 25% comments and 15% endorsements, each by an account in turn
+ * and on an original picked at random. The platform is one of:
+ * <ul>
+ * <li><code>baseline</code>, a {@link BaselineSocialMedia} that does nothing;</li>
+ * <li><code>objects</code>, a {@link SocialMedia} keeping a Post object for each
+ * post;</li>
+ * <li><code>columnar</code>, a SocialMedia keeping posts in a
+ * {@link ColumnarPostStore};</li>
+ * <li><code>concurrent</code>, a {@link ConcurrentSocialMedia}.</li>
+ * </ul>
+ * Messages the platform prints to System.out while the benchmarks run are
+ * thrown away.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class PlatformState {
+
+	@Param({ "baseline", "objects", "columnar", "concurrent" })
+	public String platformType;
+
+	@Param({ "1000", "10000", "100000", "1000000", "10000000" })
+	public int posts;
+
+	public SocialMediaPlatform platform;
+	public int accounts;
+	public String[] handles;
+	public int[] originals;
+	public int originalCount;
+	public int created;
+
+	private SplittableRandom random;
+	private PrintStream out;
+
+	/**
+	* Builds the platform, with the same accounts and posts every time.
+	*
+	* @throws Exception if the platform refuses an account or post.
+	*/
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+		platform = newPlatform(platformType);
+		random = new SplittableRandom(1410);
+		accounts = Math.max(1000, posts / 20);
+		handles = new String[accounts];
+		for (int i = 0; i < accounts; i++) {
+			handles[i] = "user" + i;
+			platform.createAccount(handles[i], "account " + i);
+		}
+
+		//every 20 posts are 12 originals, 5 comments and 3 endorsements, starting with an original
+		originals = new int[posts - posts / 20 * 8];
+		for (int i = 0; i < posts; i++) {
+			String handle = handles[i % accounts];
+			int kind = i % 20;
+			if (kind < 12) {
+				originals[originalCount++] = platform.createPost(handle, "post " + i);
+			} else if (kind < 17) {
+				platform.commentPost(handle, nextOriginal(), "comment " + i);
+			} else {
+				platform.endorsePost(handle, nextOriginal());
+			}
+		}
+	}
+
+	/**
+	* Puts System.out back once the benchmark is done.
+	*/
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(out);
+	}
+
+	/**
+	* Returns the handle of an account picked at random.
+	*
+	* @return the handle of an existing account.
+	*/
+	public String nextHandle() {
+		return handles[random.nextInt(accounts)];
+	}
+
+	/**
+	* Returns a handle no account has been given yet.
+	*
+	* @return a new handle.
+	*/
+	public String nextNewHandle() {
+		return "new" + created++;
+	}
+
+	/**
+	* Returns the ID of an original post picked at random.
+	*
+	* @return the ID of an existing original post.
+	*/
+	public int nextOriginal() {
+		return originals[random.nextInt(originalCount)];
+	}
+
+	/**
+	* Creates an empty platform of one of the types benchmarked.
+	*
+	* @param platformType baseline, objects, columnar or concurrent.
+	* @return the new platform.
+	*/
+	public static SocialMediaPlatform newPlatform(String platformType) {
+		switch (platformType) {
+		case "baseline":
+			return new BaselineSocialMedia();
+		case "objects":
+			return new SocialMedia();
+		case "columnar":
+			return new SocialMedia(new ColumnarPostStore());
+		case "concurrent":
+			return new ConcurrentSocialMedia();
+		default:
+			throw new IllegalArgumentException("Platform type not recognised!");
+		}
+	}
+
+}
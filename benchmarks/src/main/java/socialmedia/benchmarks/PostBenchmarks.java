@@ -0,0 +1,57 @@
+package socialmedia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PostBenchmarks measures the operations that add to a platform: creating
+ * accounts and creating, endorsing and commenting on posts.
+ * <p>
+ * Left to run for a fixed time they would add millions of posts, so the
+ * platform would soon be far larger than the size given. Instead every
+ * iteration adds a batch of {@value #BATCH_SIZE} to a platform loaded back from
+ * its snapshot just before, a tenth of the smallest platform at most, and the
+ * time given is for the whole batch.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10, batchSize = PostBenchmarks.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = PostBenchmarks.BATCH_SIZE)
+public class PostBenchmarks {
+
+	/** Accounts or posts added in each iteration. */
+	public static final int BATCH_SIZE = 100;
+
+	@Benchmark
+	public int createAccount(PlatformState state, ReloadState reload) throws Exception {
+		return state.platform.createAccount(state.nextNewHandle(), "benchmark account");
+	}
+
+	@Benchmark
+	public int createPost(PlatformState state, ReloadState reload) throws Exception {
+		return state.platform.createPost(state.nextHandle(), "benchmark post");
+	}
+
+	@Benchmark
+	public int endorsePost(PlatformState state, ReloadState reload) throws Exception {
+		return state.platform.endorsePost(state.nextHandle(), state.nextOriginal());
+	}
+
+	@Benchmark
+	public int commentPost(PlatformState state, ReloadState reload) throws Exception {
+		return state.platform.commentPost(state.nextHandle(), state.nextOriginal(), "benchmark comment");
+	}
+
+}
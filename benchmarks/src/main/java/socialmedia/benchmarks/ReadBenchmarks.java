@@ -0,0 +1,73 @@
+package socialmedia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ReadBenchmarks measures the operations that show accounts and posts, and the
+ * analytics over the whole platform. None of them change it.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReadBenchmarks {
+
+	@Benchmark
+	public String showAccount(PlatformState state) throws Exception {
+		return state.platform.showAccount(state.nextHandle());
+	}
+
+	@Benchmark
+	public String showIndividualPost(PlatformState state) throws Exception {
+		return state.platform.showIndividualPost(state.nextOriginal());
+	}
+
+	@Benchmark
+	public StringBuilder showPostChildrenDetails(PlatformState state) throws Exception {
+		return state.platform.showPostChildrenDetails(state.nextOriginal());
+	}
+
+	@Benchmark
+	public int getNumberOfAccounts(PlatformState state) {
+		return state.platform.getNumberOfAccounts();
+	}
+
+	@Benchmark
+	public int getTotalOriginalPosts(PlatformState state) {
+		return state.platform.getTotalOriginalPosts();
+	}
+
+	@Benchmark
+	public int getTotalEndorsmentPosts(PlatformState state) {
+		return state.platform.getTotalEndorsmentPosts();
+	}
+
+	@Benchmark
+	public int getTotalCommentPosts(PlatformState state) {
+		return state.platform.getTotalCommentPosts();
+	}
+
+	@Benchmark
+	public int getMostEndorsedPost(PlatformState state) {
+		return state.platform.getMostEndorsedPost();
+	}
+
+	@Benchmark
+	public int getMostEndorsedAccount(PlatformState state) {
+		return state.platform.getMostEndorsedAccount();
+	}
+
+}
@@ -0,0 +1,38 @@
+package socialmedia.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ReloadState puts the benchmarked platform back as it was saved in its
+ * {@link SnapshotState} before every iteration, for benchmarks that change it,
+ * so that each batch they run acts on a platform of the size given. It also
+ * counts which post or account a batch acts on next, from the start of the
+ * iteration.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class ReloadState {
+
+	public int next;
+
+	/**
+	* Loads the platform back from its snapshot.
+	*
+	* @param state the platform benchmarked.
+	* @param snapshot the snapshot saved of it.
+	* @throws Exception if the snapshot cannot be loaded.
+	*/
+	@Setup(Level.Iteration)
+	public void reload(PlatformState state, SnapshotState snapshot) throws Exception {
+		state.platform.erasePlatform();
+		state.platform.loadPlatform(snapshot.filename);
+		next = 0;
+	}
+
+}
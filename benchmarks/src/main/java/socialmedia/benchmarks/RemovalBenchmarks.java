@@ -0,0 +1,44 @@
+package socialmedia.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RemovalBenchmarks measures deleting posts and removing accounts.
+ * <p>
+ * Each can only be done once to a post or account, so every iteration removes a
+ * batch of them in turn from a platform loaded back from its snapshot just
+ * before, and the time given is for the whole batch.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, batchSize = RemovalBenchmarks.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = RemovalBenchmarks.BATCH_SIZE)
+public class RemovalBenchmarks {
+
+	/** Posts or accounts removed in each iteration, fewer than the smallest platform has. */
+	public static final int BATCH_SIZE = 500;
+
+	@Benchmark
+	public void deletePost(PlatformState state, ReloadState reload) throws Exception {
+		state.platform.deletePost(state.originals[reload.next++]);
+	}
+
+	@Benchmark
+	public void removeAccount(PlatformState state, ReloadState reload) throws Exception {
+		state.platform.removeAccount(state.handles[reload.next++]);
+	}
+
+}
@@ -0,0 +1,52 @@
+package socialmedia.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * SnapshotState is a snapshot of the benchmarked platform, saved to a
+ * temporary file once the platform is built, to load back from.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class SnapshotState {
+
+	public Path directory;
+	public String filename;
+
+	/**
+	* Saves the platform to a file in a new temporary directory.
+	*
+	* @param state the platform benchmarked.
+	* @throws IOException if the platform cannot be saved.
+	*/
+	@Setup(Level.Trial)
+	public void setUp(PlatformState state) throws IOException {
+		directory = Files.createTempDirectory("socialmedia-benchmark");
+		filename = directory.resolve("platform").toString();
+		state.platform.savePlatform(filename);
+	}
+
+	/**
+	* Deletes the snapshot and its directory.
+	*
+	* @throws IOException if they cannot be deleted.
+	*/
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(Paths.get(filename + ".ser"));
+		Files.delete(directory);
+	}
+
+}
@@ -0,0 +1,80 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks which snapshot the deltas of a SocialMedia follow after a background
+ * save: the new one once it has been written, and the one before it, with the
+ * changes the new one would have had, if it could not be written.
+ */
+public class AsyncSaveDeltaTest {
+
+	@Test
+	public void deltaFollowsWrittenAsyncSave() throws Exception {
+		Path directory = Files.createTempDirectory("async");
+		try {
+			String full = directory.resolve("full").toString();
+			String delta = directory.resolve("delta").toString();
+			SocialMedia platform = populated();
+			platform.savePlatformAsync(full).join();
+			platform.createPost("author", "after the save");
+			platform.savePlatformDelta(full, delta);
+
+			SocialMedia loaded = new SocialMedia();
+			loaded.loadPlatformChain(full, Arrays.asList(delta));
+			assertEquals(3, loaded.getTotalOriginalPosts());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void deltaFollowsEarlierSnapshotWhenAsyncSaveFails() throws Exception {
+		Path directory = Files.createTempDirectory("async");
+		try {
+			String full = directory.resolve("full").toString();
+			String delta = directory.resolve("delta").toString();
+			SocialMedia platform = populated();
+			platform.savePlatform(full);
+			platform.createPost("author", "before the failed save");
+			//no file can be written in a directory that does not exist
+			String unwritable = directory.resolve("missing").resolve("async").toString();
+			assertThrows(CompletionException.class, () -> platform.savePlatformAsync(unwritable).join());
+			platform.createPost("author", "after the failed save");
+			platform.savePlatformDelta(full, delta);
+
+			SocialMedia loaded = new SocialMedia();
+			loaded.loadPlatformChain(full, Arrays.asList(delta));
+			assertEquals(4, loaded.getTotalOriginalPosts());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	private static SocialMedia populated() throws Exception {
+		SocialMedia platform = new SocialMedia();
+		platform.createAccount("author");
+		platform.createPost("author", "first");
+		platform.createPost("author", "second");
+		return platform;
+	}
+
+	private static void delete(Path directory) throws Exception {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+}
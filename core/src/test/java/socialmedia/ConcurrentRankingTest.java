@@ -0,0 +1,62 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that ConcurrentSocialMedia ranks the most endorsed posts and accounts
+ * as SocialMedia does, for every k, as posts are endorsed and deleted.
+ */
+public class ConcurrentRankingTest {
+
+	@Test
+	public void ranksAsSocialMediaDoes() throws Exception {
+		Random random = new Random(1410);
+		SocialMedia expected = new SocialMedia();
+		ConcurrentSocialMedia actual = new ConcurrentSocialMedia(4);
+		String[] handles = new String[12];
+		for (int i = 0; i < handles.length; i++) {
+			handles[i] = "user" + i;
+			expected.createAccount(handles[i]);
+			actual.createAccount(handles[i]);
+		}
+		int[] posts = new int[60];
+		boolean[] deleted = new boolean[posts.length];
+		for (int i = 0; i < posts.length; i++) {
+			String handle = handles[random.nextInt(handles.length)];
+			posts[i] = expected.createPost(handle, "post " + i);
+			actual.createPost(handle, "post " + i);
+		}
+		for (int step = 0; step < 400; step++) {
+			int post = random.nextInt(posts.length);
+			int id = posts[post];
+			if (!deleted[post]) {
+				if (random.nextInt(20) == 0) {
+					expected.deletePost(id);
+					actual.deletePost(id);
+					deleted[post] = true;
+				} else {
+					String handle = handles[random.nextInt(handles.length)];
+					expected.endorsePost(handle, id);
+					actual.endorsePost(handle, id);
+				}
+			}
+			int k = random.nextInt(posts.length + 5);
+			assertArrayEquals(expected.getMostEndorsedPosts(k), actual.getMostEndorsedPosts(k));
+			assertArrayEquals(expected.getMostEndorsedAccounts(k), actual.getMostEndorsedAccounts(k));
+		}
+	}
+
+	@Test
+	public void refusesNegativeK() {
+		ConcurrentSocialMedia platform = new ConcurrentSocialMedia(4);
+		assertThrows(IllegalArgumentException.class, () -> platform.getMostEndorsedPosts(-1));
+		assertThrows(IllegalArgumentException.class, () -> platform.getMostEndorsedAccounts(-1));
+		assertArrayEquals(new int[0], platform.getMostEndorsedPosts(0));
+	}
+
+}
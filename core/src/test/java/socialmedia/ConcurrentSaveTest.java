@@ -0,0 +1,74 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a background save of a ConcurrentSocialMedia writes the platform
+ * as it was when the save was called, even if the platform is erased or
+ * replaced before the save has gathered its posts.
+ */
+public class ConcurrentSaveTest {
+
+	@Test
+	public void eraseDuringSaveLeavesSnapshotWhole() throws Exception {
+		checkReplacedDuringSave(platform -> platform.erasePlatform());
+	}
+
+	@Test
+	public void loadDuringSaveLeavesSnapshotWhole() throws Exception {
+		Path other = Files.createTempFile("other", ".ser");
+		try {
+			String filename = other.toString().substring(0, other.toString().length() - ".ser".length());
+			ConcurrentSocialMedia replacement = new ConcurrentSocialMedia(4);
+			replacement.createAccount("other");
+			replacement.createPost("other", "loaded post");
+			replacement.savePlatform(filename);
+			checkReplacedDuringSave(platform -> platform.loadPlatform(filename));
+		} finally {
+			Files.delete(other);
+		}
+	}
+
+	private interface Replacement {
+		void replace(ConcurrentSocialMedia platform) throws Exception;
+	}
+
+	private static void checkReplacedDuringSave(Replacement replacement) throws Exception {
+		Path file = Files.createTempFile("saved", ".ser");
+		try {
+			String filename = file.toString().substring(0, file.toString().length() - ".ser".length());
+			ConcurrentSocialMedia platform = new ConcurrentSocialMedia(4);
+			platform.createAccount("author");
+			int first = platform.createPost("author", "first post");
+			platform.createPost("author", "second post");
+			platform.deletePost(first);
+
+			//hold the save back until the contents have been replaced and changed again
+			List<Runnable> held = new ArrayList<Runnable>();
+			CompletableFuture<SaveReport> save = platform.savePlatformAsync(filename, held::add);
+			replacement.replace(platform);
+			platform.createAccount("newcomer");
+			platform.createPost("newcomer", "new post");
+			held.get(0).run();
+			save.join();
+
+			ConcurrentSocialMedia loaded = new ConcurrentSocialMedia(4);
+			loaded.loadPlatform(filename);
+			assertEquals(1, loaded.getNumberOfAccounts());
+			assertEquals(1, loaded.getTotalOriginalPosts());
+			assertTrue(loaded.showIndividualPost(2).contains("second post"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks EndorsementRanking against a ranking worked out from the counts by
+ * sorting, through random increases, decreases and removals.
+ */
+public class EndorsementRankingTest {
+
+	@Test
+	public void ranksByCountThenLowestId() {
+		Random random = new Random(1410);
+		for (int round = 0; round < 100; round++) {
+			EndorsementRanking ranking = new EndorsementRanking();
+			int ids = 1 + random.nextInt(80);
+			int[] counts = new int[ids + 1];
+			for (int step = 0; step < 500; step++) {
+				int id = 1 + random.nextInt(ids);
+				int operation = random.nextInt(10);
+				if (operation < 6) {
+					ranking.increase(id);
+					counts[id]++;
+				} else if (operation < 9) {
+					ranking.decrease(id);
+					counts[id] = Math.max(0, counts[id] - 1);
+				} else {
+					ranking.remove(id);
+					counts[id] = 0;
+				}
+				int k = random.nextInt(ids + 5);
+				int[] expected = expectedTop(counts, k);
+				assertArrayEquals(expected, ranking.top(k));
+				int[] first = expectedTop(counts, 1);
+				assertEquals(first.length == 0 ? 0 : first[0], ranking.top());
+				assertEquals(counts[id], ranking.countOf(id));
+			}
+		}
+	}
+
+	@Test
+	public void refusesNegativeK() {
+		EndorsementRanking ranking = new EndorsementRanking();
+		ranking.increase(3);
+		assertThrows(IllegalArgumentException.class, () -> ranking.top(-1));
+		assertArrayEquals(new int[] { 3 }, ranking.top(5));
+	}
+
+	private static int[] expectedTop(int[] counts, int k) {
+		Integer[] ids = new Integer[counts.length - 1];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i + 1;
+		}
+		Arrays.sort(ids, (a, b) -> counts[a] != counts[b] ? counts[b] - counts[a] : a - b);
+		return Arrays.stream(ids).filter(id -> counts[id] > 0).limit(k).mapToInt(Integer::intValue).toArray();
+	}
+
+}
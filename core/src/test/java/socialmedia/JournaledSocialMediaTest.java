@@ -0,0 +1,57 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that JournaledSocialMedia refuses changes it can no longer record,
+ * without making them to the wrapped platform, and that the changes it did
+ * record are replayed when it is reopened.
+ */
+public class JournaledSocialMediaTest {
+
+	@Test
+	public void refusesChangesOnceClosed() throws Exception {
+		Path directory = Files.createTempDirectory("journal");
+		try {
+			String filename = directory.resolve("platform").toString();
+			SocialMedia wrapped = new SocialMedia();
+			JournaledSocialMedia platform = new JournaledSocialMedia(wrapped, filename);
+			platform.createAccount("author");
+			int post = platform.createPost("author", "recorded");
+			platform.close();
+
+			assertThrows(UncheckedIOException.class, () -> platform.createAccount("late"));
+			assertThrows(UncheckedIOException.class, () -> platform.createPost("author", "not recorded"));
+			assertThrows(UncheckedIOException.class, () -> platform.endorsePost("author", post));
+			assertThrows(UncheckedIOException.class, () -> platform.deletePost(post));
+			assertThrows(UncheckedIOException.class, () -> platform.erasePlatform());
+			assertEquals(1, wrapped.getNumberOfAccounts());
+			assertEquals(1, wrapped.getTotalOriginalPosts());
+			assertEquals(0, wrapped.getTotalEndorsmentPosts());
+
+			JournaledSocialMedia reopened = new JournaledSocialMedia(new SocialMedia(), filename);
+			try {
+				assertEquals(1, reopened.getNumberOfAccounts());
+				assertEquals(1, reopened.getTotalOriginalPosts());
+			} finally {
+				reopened.close();
+			}
+		} finally {
+			try (Stream<Path> files = Files.walk(directory)) {
+				for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that files saved with Java serialization by the first version of the
+ * platform still load. baseline.ser was written by that version's
+ * SocialMedia.savePlatform, with three accounts, two original posts, two
+ * comments and three endorsements.
+ */
+public class LegacySnapshotTest {
+
+	@Test
+	public void loadsFileSavedByFirstVersion() throws Exception {
+		String filename = resource("baseline.ser");
+		for (SocialMediaPlatform platform : new SocialMediaPlatform[] { new SocialMedia(),
+				new SocialMedia(new ColumnarPostStore()), new ConcurrentSocialMedia() }) {
+			platform.loadPlatform(filename.substring(0, filename.length() - ".ser".length()));
+			assertEquals(3, platform.getNumberOfAccounts());
+			assertEquals(2, platform.getTotalOriginalPosts());
+			assertEquals(2, platform.getTotalCommentPosts());
+			assertEquals(3, platform.getTotalEndorsmentPosts());
+			assertEquals(1, platform.getMostEndorsedPost());
+			assertEquals(1, platform.getMostEndorsedAccount());
+			assertTrue(platform.showIndividualPost(1).contains("hello from alice"));
+			assertTrue(platform.showAccount("carol").contains("Description: third"));
+		}
+	}
+
+	@Test
+	public void refusesOtherSerializedClasses() throws Exception {
+		Path file = Files.createTempFile("legacy", ".ser");
+		try {
+			try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+				out.writeObject(new HashMap<String, String>());
+			}
+			String filename = file.toString();
+			SocialMedia platform = new SocialMedia();
+			assertThrows(IOException.class, () -> platform.loadPlatform(filename.substring(0, filename.length() - ".ser".length())));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static String resource(String name) throws Exception {
+		return Paths.get(LegacySnapshotTest.class.getResource(name).toURI()).toString();
+	}
+
+}
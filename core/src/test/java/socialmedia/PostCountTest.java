@@ -0,0 +1,70 @@
+package socialmedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that an account's post count, which counts only its original posts,
+ * never goes negative as its comments and endorsements are deleted or the
+ * account is removed.
+ */
+public class PostCountTest {
+
+	private static final Pattern POST_COUNT = Pattern.compile("Post count: (-?\\d+)");
+
+	@Test
+	public void deletingCommentsAndEndorsementsKeepsPostCount() throws Exception {
+		checkDeletions(new SocialMedia());
+		checkDeletions(new SocialMedia(new ColumnarPostStore()));
+		checkDeletions(new ConcurrentSocialMedia());
+	}
+
+	@Test
+	public void removingAnAccountLeavesOthersCounts() throws Exception {
+		checkRemoval(new SocialMedia());
+		checkRemoval(new SocialMedia(new ColumnarPostStore()));
+		checkRemoval(new ConcurrentSocialMedia());
+	}
+
+	static void checkDeletions(SocialMediaPlatform platform) throws Exception {
+		platform.createAccount("author");
+		platform.createAccount("reader");
+		int post = platform.createPost("author", "original");
+		int comment = platform.commentPost("author", post, "comment");
+		int endorsement = platform.endorsePost("author", post);
+		int reply = platform.commentPost("author", comment, "reply");
+		assertEquals(1, postCount(platform, "author"));
+
+		platform.deletePost(comment);
+		platform.deletePost(endorsement);
+		assertEquals(1, postCount(platform, "author"));
+		platform.deletePost(post);
+		platform.deletePost(reply);
+		assertEquals(0, postCount(platform, "author"));
+	}
+
+	static void checkRemoval(SocialMediaPlatform platform) throws Exception {
+		platform.createAccount("author");
+		platform.createAccount("reader");
+		int post = platform.createPost("author", "original");
+		platform.createPost("reader", "original");
+		platform.commentPost("reader", post, "comment");
+		platform.endorsePost("reader", post);
+		platform.commentPost("author", post, "reply");
+		platform.removeAccount("author");
+		assertEquals(1, postCount(platform, "reader"));
+		platform.removeAccount("reader");
+		assertEquals(0, platform.getNumberOfAccounts());
+	}
+
+	static int postCount(SocialMediaPlatform platform, String handle) throws Exception {
+		Matcher matcher = POST_COUNT.matcher(platform.showAccount(handle));
+		matcher.find();
+		return Integer.parseInt(matcher.group(1));
+	}
+
+}
@@ -46,7 +46,7 @@ public class Account implements Serializable{
     }
 
     public int getEndorsementCount(){
-        return postCount;
+        return endorsementCount;
     }
 
     public String getDescriptionField(){
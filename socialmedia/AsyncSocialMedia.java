@@ -0,0 +1,295 @@
+package socialmedia;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AsyncSocialMedia is an implementor of the AsyncSocialMediaPlatform interface
+ * that runs the operations of a SocialMediaPlatform, by default a SocialMedia,
+ * on an executor.
+ * <p>
+ * Calls are queued and run one at a time, in the order they were made, so the
+ * wrapped platform never needs to be thread-safe. Rather than handing every call
+ * to the executor, queued calls are run in batches: a single executor task runs
+ * up to batchSize of them back to back. Once a batch has run the next one is
+ * handed to the executor before the futures of the finished batch are
+ * completed, so callbacks attached to those futures never hold up the queue.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class AsyncSocialMedia implements AsyncSocialMediaPlatform {
+
+	//the platform calls run on, only ever used by one thread at a time
+	final SocialMediaPlatform platform;
+	final Executor executor;
+	final int batchSize;
+	//calls waiting to run, and whether a batch is running or handed to the executor
+	final ConcurrentLinkedQueue<Request<?>> pending = new ConcurrentLinkedQueue<Request<?>>();
+	final AtomicBoolean draining = new AtomicBoolean();
+
+	/**
+	* Creates an empty SocialMedia platform run on the common ForkJoinPool, in
+	* batches of up to 256 calls.
+	*/
+	public AsyncSocialMedia() {
+		this(new SocialMedia(), ForkJoinPool.commonPool(), 256);
+	}
+
+	/**
+	* Creates an asynchronous platform running calls on the given platform.
+	*
+	* @param platform platform the calls are run on. It is only used by one
+	* thread at a time, and should not be used directly while wrapped.
+	* @param executor executor the batches of calls are run on.
+	* @param batchSize most calls run by one executor task.
+	*/
+	public AsyncSocialMedia(SocialMediaPlatform platform, Executor executor, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1!");
+		}
+		this.platform = platform;
+		this.executor = executor;
+		this.batchSize = batchSize;
+	}
+
+
+		// Account-related methods ****************************************
+
+	@Override
+	public CompletableFuture<Integer> createAccount(String handle) {
+		return submit(platform -> platform.createAccount(handle));
+	}
+
+	@Override
+	public CompletableFuture<Integer> createAccount(String handle, String description) {
+		return submit(platform -> platform.createAccount(handle, description));
+	}
+
+	@Override
+	public CompletableFuture<Void> removeAccount(int id) {
+		return submit(platform -> {
+			platform.removeAccount(id);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> removeAccount(String handle) {
+		return submit(platform -> {
+			platform.removeAccount(handle);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> changeAccountHandle(String oldHandle, String newHandle) {
+		return submit(platform -> {
+			platform.changeAccountHandle(oldHandle, newHandle);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> updateAccountDescription(String handle, String description) {
+		return submit(platform -> {
+			platform.updateAccountDescription(handle, description);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<String> showAccount(String handle) {
+		return submit(platform -> platform.showAccount(handle));
+	}
+
+		// End Account-related methods ****************************************
+
+
+		// Post-related methods ****************************************
+
+	@Override
+	public CompletableFuture<Integer> createPost(String handle, String message) {
+		return submit(platform -> platform.createPost(handle, message));
+	}
+
+	@Override
+	public CompletableFuture<Integer> endorsePost(String handle, int id) {
+		return submit(platform -> platform.endorsePost(handle, id));
+	}
+
+	@Override
+	public CompletableFuture<Integer> commentPost(String handle, int id, String message) {
+		return submit(platform -> platform.commentPost(handle, id, message));
+	}
+
+	@Override
+	public CompletableFuture<Void> deletePost(int id) {
+		return submit(platform -> {
+			platform.deletePost(id);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<String> showIndividualPost(int id) {
+		return submit(platform -> platform.showIndividualPost(id));
+	}
+
+	@Override
+	public CompletableFuture<StringBuilder> showPostChildrenDetails(int id) {
+		return submit(platform -> platform.showPostChildrenDetails(id));
+	}
+
+		// End Post-related methods ****************************************
+
+
+		// Analytics-related methods ****************************************
+
+	@Override
+	public CompletableFuture<Integer> getNumberOfAccounts() {
+		return submit(platform -> platform.getNumberOfAccounts());
+	}
+
+	@Override
+	public CompletableFuture<Integer> getTotalOriginalPosts() {
+		return submit(platform -> platform.getTotalOriginalPosts());
+	}
+
+	@Override
+	public CompletableFuture<Integer> getTotalEndorsmentPosts() {
+		return submit(platform -> platform.getTotalEndorsmentPosts());
+	}
+
+	@Override
+	public CompletableFuture<Integer> getTotalCommentPosts() {
+		return submit(platform -> platform.getTotalCommentPosts());
+	}
+
+	@Override
+	public CompletableFuture<Integer> getMostEndorsedPost() {
+		return submit(platform -> platform.getMostEndorsedPost());
+	}
+
+	@Override
+	public CompletableFuture<Integer> getMostEndorsedAccount() {
+		return submit(platform -> platform.getMostEndorsedAccount());
+	}
+
+		// End Analytics-related methods ****************************************
+
+
+		// Management-related methods ****************************************
+
+	@Override
+	public CompletableFuture<Void> erasePlatform() {
+		return submit(platform -> {
+			platform.erasePlatform();
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> savePlatform(String filename) {
+		return submit(platform -> {
+			platform.savePlatform(filename);
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> loadPlatform(String filename) {
+		return submit(platform -> {
+			platform.loadPlatform(filename);
+			return null;
+		});
+	}
+
+		// End Management-related methods ****************************************
+
+
+		// Queue-related methods ****************************************
+
+	//queue a call, handing a batch to the executor if none is running
+	private <T> CompletableFuture<T> submit(PlatformCall<T> call) {
+		Request<T> request = new Request<T>(call);
+		pending.add(request);
+		schedule();
+		return request.future;
+	}
+
+	//hand a batch to the executor if calls are waiting and no batch is running
+	private void schedule() {
+		if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(this::drain);
+		} catch (RejectedExecutionException reE) {
+			//the executor is shut down, so nothing queued will ever run
+			Request<?> request;
+			while ((request = pending.poll()) != null) {
+				request.failure = reE;
+				request.complete();
+			}
+			draining.set(false);
+		}
+	}
+
+	//run up to batchSize calls, let the next batch start, then complete the finished futures
+	private void drain() {
+		ArrayList<Request<?>> batch = new ArrayList<Request<?>>();
+		Request<?> request;
+		while (batch.size() < batchSize && (request = pending.poll()) != null) {
+			request.run(platform);
+			batch.add(request);
+		}
+		draining.set(false);
+		schedule();
+		for (int i = 0; i < batch.size(); i++) {
+			batch.get(i).complete();
+		}
+	}
+
+	//one operation on the platform, which may throw any of the platform's exceptions
+	private interface PlatformCall<T> {
+		T run(SocialMediaPlatform platform) throws Exception;
+	}
+
+	//a queued call with the future its outcome completes
+	private static class Request<T> {
+
+		final PlatformCall<T> call;
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		T result;
+		Throwable failure;
+
+		Request(PlatformCall<T> call) {
+			this.call = call;
+		}
+
+		void run(SocialMediaPlatform platform) {
+			try {
+				result = call.run(platform);
+			} catch (Throwable t) {
+				failure = t;
+			}
+		}
+
+		void complete() {
+			if (failure == null) {
+				future.complete(result);
+			} else {
+				future.completeExceptionally(failure);
+			}
+		}
+	}
+
+		// End Queue-related methods ****************************************
+
+}
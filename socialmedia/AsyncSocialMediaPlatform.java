@@ -0,0 +1,222 @@
+package socialmedia;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncSocialMediaPlatform interface. It offers the operations of the
+ * SocialMediaPlatform without blocking the calling thread: each method returns
+ * at once with a CompletableFuture, which completes with the result of the
+ * operation or fails with the exception the SocialMediaPlatform method would
+ * have thrown, such as a HandleNotRecognisedException or
+ * PostIDNotRecognisedException. Operations take effect in the order they were
+ * called, so a caller can issue many of them before waiting for any.
+ *
+ * @version 1.0
+ *
+ */
+public interface AsyncSocialMediaPlatform {
+
+	// Account-related methods ****************************************
+
+	/**
+	 * The method creates an account in the platform with the given handle.
+	 *
+	 * @param handle account's handle.
+	 * @return the ID of the created account, or a failure with an
+	 *         IllegalHandleException or InvalidHandleException.
+	 */
+	CompletableFuture<Integer> createAccount(String handle);
+
+	/**
+	 * The method creates an account in the platform with the given handle and
+	 * description.
+	 *
+	 * @param handle      account's handle.
+	 * @param description account's description.
+	 * @return the ID of the created account, or a failure with an
+	 *         IllegalHandleException or InvalidHandleException.
+	 */
+	CompletableFuture<Integer> createAccount(String handle, String description);
+
+	/**
+	 * The method removes the account with the corresponding ID from the platform,
+	 * with all of their posts and likes.
+	 *
+	 * @param id ID of the account.
+	 * @return completion, or a failure with an AccountIDNotRecognisedException.
+	 */
+	CompletableFuture<Void> removeAccount(int id);
+
+	/**
+	 * The method removes the account with the corresponding handle from the
+	 * platform, with all of their posts and likes.
+	 *
+	 * @param handle account's handle.
+	 * @return completion, or a failure with a HandleNotRecognisedException.
+	 */
+	CompletableFuture<Void> removeAccount(String handle);
+
+	/**
+	 * The method replaces the oldHandle of an account by the newHandle.
+	 *
+	 * @param oldHandle account's old handle.
+	 * @param newHandle account's new handle.
+	 * @return completion, or a failure with a HandleNotRecognisedException,
+	 *         IllegalHandleException or InvalidHandleException.
+	 */
+	CompletableFuture<Void> changeAccountHandle(String oldHandle, String newHandle);
+
+	/**
+	 * The method updates the description of the account with the respective handle.
+	 *
+	 * @param handle      handle to identify the account.
+	 * @param description new text for description.
+	 * @return completion, or a failure with a HandleNotRecognisedException.
+	 */
+	CompletableFuture<Void> updateAccountDescription(String handle, String description);
+
+	/**
+	 * The method creates a formatted string summarising the stats of the account
+	 * identified by the given handle.
+	 *
+	 * @param handle handle to identify the account.
+	 * @return the account formatted summary, or a failure with a
+	 *         HandleNotRecognisedException.
+	 */
+	CompletableFuture<String> showAccount(String handle);
+
+	// End Account-related methods ****************************************
+
+	// Post-related methods ****************************************
+
+	/**
+	 * The method creates a post for the account identified by the given handle with
+	 * the following message.
+	 *
+	 * @param handle  handle to identify the account.
+	 * @param message post message.
+	 * @return the sequential ID of the created post, or a failure with a
+	 *         HandleNotRecognisedException or InvalidPostException.
+	 */
+	CompletableFuture<Integer> createPost(String handle, String message);
+
+	/**
+	 * The method creates an endorsement post of an existing post.
+	 *
+	 * @param handle of the account endorsing a post.
+	 * @param id     of the post being endorsed.
+	 * @return the sequential ID of the created post, or a failure with a
+	 *         HandleNotRecognisedException, PostIDNotRecognisedException or
+	 *         NotActionablePostException.
+	 */
+	CompletableFuture<Integer> endorsePost(String handle, int id);
+
+	/**
+	 * The method creates a comment post referring to an existing post.
+	 *
+	 * @param handle  of the account commenting a post.
+	 * @param id      of the post being commented.
+	 * @param message the comment post message.
+	 * @return the sequential ID of the created post, or a failure with a
+	 *         HandleNotRecognisedException, PostIDNotRecognisedException,
+	 *         NotActionablePostException or InvalidPostException.
+	 */
+	CompletableFuture<Integer> commentPost(String handle, int id, String message);
+
+	/**
+	 * The method removes the post from the platform, with its endorsements.
+	 *
+	 * @param id ID of post to be removed.
+	 * @return completion, or a failure with a PostIDNotRecognisedException.
+	 */
+	CompletableFuture<Void> deletePost(int id);
+
+	/**
+	 * The method generates a formated string containing the details of a single
+	 * post.
+	 *
+	 * @param id of the post to be shown.
+	 * @return a formatted string containing post's details, or a failure with a
+	 *         PostIDNotRecognisedException.
+	 */
+	CompletableFuture<String> showIndividualPost(int id);
+
+	/**
+	 * The method builds a StringBuilder showing the details of the current post and
+	 * all its children posts.
+	 *
+	 * @param id of the post to be shown.
+	 * @return a formatted StringBuilder containing the details of the post and its
+	 *         children, or a failure with a PostIDNotRecognisedException or
+	 *         NotActionablePostException.
+	 */
+	CompletableFuture<StringBuilder> showPostChildrenDetails(int id);
+
+	// End Post-related methods ****************************************
+
+	// Analytics-related methods ****************************************
+
+	/**
+	 * @return the total number of accounts in the platform.
+	 */
+	CompletableFuture<Integer> getNumberOfAccounts();
+
+	/**
+	 * @return the total number of original posts in the platform.
+	 */
+	CompletableFuture<Integer> getTotalOriginalPosts();
+
+	/**
+	 * @return the total number of endorsement posts in the platform.
+	 */
+	CompletableFuture<Integer> getTotalEndorsmentPosts();
+
+	/**
+	 * @return the total number of comments posts in the platform.
+	 */
+	CompletableFuture<Integer> getTotalCommentPosts();
+
+	/**
+	 * @return the ID of the most popular post.
+	 */
+	CompletableFuture<Integer> getMostEndorsedPost();
+
+	/**
+	 * @return the ID of the most popular account.
+	 */
+	CompletableFuture<Integer> getMostEndorsedAccount();
+
+	// End Analytics-related methods ****************************************
+
+	// Management-related methods ****************************************
+
+	/**
+	 * Method empties this platform of its contents and resets all internal
+	 * counters.
+	 *
+	 * @return completion.
+	 */
+	CompletableFuture<Void> erasePlatform();
+
+	/**
+	 * Method saves this platform's contents into a serialised file, with the
+	 * filename given in the argument.
+	 *
+	 * @param filename location of the file to be saved
+	 * @return completion, or a failure with an IOException.
+	 */
+	CompletableFuture<Void> savePlatform(String filename);
+
+	/**
+	 * Method loads and replaces this platform's contents with the serialised
+	 * contents stored in the file given in the argument.
+	 *
+	 * @param filename location of the file to be loaded
+	 * @return completion, or a failure with an IOException or
+	 *         ClassNotFoundException.
+	 */
+	CompletableFuture<Void> loadPlatform(String filename);
+
+	// End Management-related methods ****************************************
+
+}
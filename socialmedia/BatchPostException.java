@@ -0,0 +1,44 @@
+package socialmedia;
+
+/**
+ * Thrown when attempting to create a batch of posts, endorsements or comments
+ * in which some items are invalid. Nothing in the batch is created. The
+ * exception each invalid item would have thrown on its own is kept at the
+ * item's position in the batch.
+ * 
+ * @version 1.0
+ *
+ */
+public class BatchPostException extends Exception {
+
+	private final Exception[] failures;
+
+	/**
+	 * Constructs an instance of the exception with no message
+	 */
+	public BatchPostException() {
+		failures = new Exception[0];
+	}
+
+	/**
+	 * Constructs an instance of the exception containing the message argument and
+	 * the failure of each item
+	 * 
+	 * @param message  message containing details regarding the exception cause
+	 * @param failures by position in the batch, the exception an item would have
+	 *                 thrown on its own, or null for valid items
+	 */
+	public BatchPostException(String message, Exception[] failures) {
+		super(message);
+		this.failures = failures;
+	}
+
+	/**
+	 * @return by position in the batch, the exception an item would have thrown on
+	 *         its own, or null for valid items
+	 */
+	public Exception[] getFailures() {
+		return failures.clone();
+	}
+
+}
@@ -0,0 +1,56 @@
+package socialmedia;
+
+import java.util.Arrays;
+
+//post store that keeps posts as columns instead of objects: the author of every post in one
+//int array and the messages in one String array, both by id. together with the kind, parent
+//and count columns of the PostIndex a post needs no object of its own, and scans over posts
+//read contiguous memory
+public class ColumnarPostStore implements PostStore{
+
+    //variables, by id
+    public int[] accounts = new int[16];
+    public String[] messages = new String[16];
+
+    //store the post in both columns, doubling them when they are full
+    public void add(int id, byte kind, int accountIdentifier, int parent, String message){
+        if (id >= accounts.length) {
+            int length = Math.max(id + 1, accounts.length * 2);
+            int[] grownAccounts = new int[length];
+            String[] grownMessages = new String[length];
+            System.arraycopy(accounts, 0, grownAccounts, 0, accounts.length);
+            System.arraycopy(messages, 0, grownMessages, 0, messages.length);
+            accounts = grownAccounts;
+            messages = grownMessages;
+        }
+        accounts[id] = accountIdentifier;
+        messages[id] = message;
+    }
+
+    public void remove(int id){
+        accounts[id] = -1;
+        messages[id] = null;
+    }
+
+    //getter methods
+    public int accountOf(int id){
+        return accounts[id];
+    }
+
+    public String messageOf(int id){
+        return messages[id];
+    }
+
+    public void clear(){
+        accounts = new int[16];
+        messages = new String[16];
+    }
+
+    public PostStore copy(int length){
+        ColumnarPostStore copy = new ColumnarPostStore();
+        copy.accounts = Arrays.copyOf(accounts, Math.min(length, accounts.length));
+        copy.messages = Arrays.copyOf(messages, Math.min(length, messages.length));
+        return copy;
+    }
+
+}
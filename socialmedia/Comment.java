@@ -3,23 +3,18 @@ package socialmedia;
 //extend post to implement serializable and get super methods and variables
 public class Comment extends Post{
 
+    //kept as it was before the fields moved out, like Post's
+    private static final long serialVersionUID = -9172033908366488846L;
+
+    //shared placeholder for every removed comment
+    public static final Comment REMOVED = new Comment(-1, -1, 0, REMOVED_MESSAGE);
+
     //variables
-    public String commenterHandle;
     public int linkedID;
 
-    //create empty comment constructor for removed comments
-    public Comment() {
-        numericalIdentifier = -1;
-        message = "The original content was removed from the system and is no longer available.";
-        numberOfComments = -1;
-        numberOfEndorsements = -1;
-        accountHandle = "";
-        accountIdentifier = -1;
-    }
-
-    //create comment using id, account id, accounthandle, linked id, and message
-    public Comment(int numericalIdentifier, int accountIdentifier, String accountHandle, int linkedID, String message) {
-        super(numericalIdentifier, accountIdentifier, accountHandle, message);
+    //create comment using id, account id, linked id, and message
+    public Comment(int numericalIdentifier, int accountIdentifier, int linkedID, String message) {
+        super(numericalIdentifier, accountIdentifier, message);
         this.linkedID = linkedID;
     }
 
@@ -28,4 +23,12 @@ public class Comment extends Post{
         return linkedID;
     }
 
+    //keep removed comments shared when a platform is loaded
+    protected Object readResolve(){
+        if (numericalIdentifier == -1) {
+            return REMOVED;
+        }
+        return this;
+    }
+
 }
\ No newline at end of file
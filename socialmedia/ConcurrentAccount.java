@@ -0,0 +1,47 @@
+package socialmedia;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//account held by ConcurrentSocialMedia. its post and endorsement counts are LongAdders, so
+//threads endorsing the posts of one popular account add to separate cells instead of all
+//changing the same field, and the cells are only summed when the counts are read
+public class ConcurrentAccount extends Account{
+
+    //variables
+    public final LongAdder posts = new LongAdder();
+    public final LongAdder endorsements = new LongAdder();
+
+    //create account using id, handle, description and the counts it starts with
+    public ConcurrentAccount(int numericalIdentifier, String handle, String descriptionField, int postCount, int endorsementCount){
+        super(numericalIdentifier, handle, descriptionField);
+        posts.add(postCount);
+        endorsements.add(endorsementCount);
+    }
+
+    //getter methods, summing the counts
+    public int getPostCount(){
+        return posts.intValue();
+    }
+
+    public int getEndorsementCount(){
+        return endorsements.intValue();
+    }
+
+    //counting methods to increase or decrease, safe to call from many threads at once
+    public void increasePostCount(){
+        posts.increment();
+    }
+
+    public void decreasePostCount(){
+        posts.decrement();
+    }
+
+    public void increaseEndorsementCount(){
+        endorsements.increment();
+    }
+
+    public void decreaseEndorsementCount(){
+        endorsements.decrement();
+    }
+
+}
@@ -0,0 +1,36 @@
+package socialmedia;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+
+//post, comment or endorsement held by ConcurrentSocialMedia, with the ids of its comments and
+//endorsements. the author, message and parent never change. the children and counts are
+//safe to change and read from many threads at once, and the counts are LongAdders so the
+//endorsements of a viral post are spread over separate cells, summed only when read
+public class ConcurrentPost {
+
+    //variables
+    public final int numericalIdentifier;
+    public final byte kind;
+    public final int accountIdentifier;
+    //post a comment or endorsement refers to, 0 for original posts
+    public final int parent;
+    public final String message;
+    //comments and endorsements of the post, sorted by id
+    public final ConcurrentSkipListSet<Integer> comments = new ConcurrentSkipListSet<Integer>();
+    public final ConcurrentSkipListSet<Integer> endorsements = new ConcurrentSkipListSet<Integer>();
+    public final LongAdder commentCount = new LongAdder();
+    public final LongAdder endorsementCount = new LongAdder();
+    //set once the post is deleted, so threads that found it before can tell
+    public volatile boolean removed;
+
+    //create post using id, kind, account id, parent and message
+    public ConcurrentPost(int numericalIdentifier, byte kind, int accountIdentifier, int parent, String message){
+        this.numericalIdentifier = numericalIdentifier;
+        this.kind = kind;
+        this.accountIdentifier = accountIdentifier;
+        this.parent = parent;
+        this.message = message;
+    }
+
+}
@@ -0,0 +1,1353 @@
+package socialmedia;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * ConcurrentSocialMedia is an implementor of the SocialMediaPlatform interface
+ * that can be shared by many threads at once. It behaves as SocialMedia does,
+ * with every method taking effect atomically.
+ * <p>
+ * Accounts and posts are kept in concurrent maps and IDs are handed out by
+ * atomic counters. Changes are guarded by a fixed array of lock stripes: a
+ * handle, an account ID or a post ID is hashed to one stripe, and each method
+ * locks only the stripes of the handles, accounts and posts it reads or
+ * changes, always in stripe order so threads never deadlock. Threads working on
+ * unrelated accounts and posts therefore rarely wait for each other. Methods
+ * that change the whole platform, such as removing an account with all of its
+ * posts, lock every stripe.
+ * <p>
+ * Creating a post, endorsing or commenting only has to keep the account and
+ * the post it refers to from being removed or renamed meanwhile, so it takes
+ * its stripes shared, and any number of threads can endorse the same post at
+ * once. The counts they change are LongAdders, on the post, on its author and
+ * for the whole platform, so a burst of endorsements of one post is spread over
+ * separate cells rather than contending on one field. The counts are summed
+ * when read.
+ * <p>
+ * Reads take no lock. showAccount and showIndividualPost read the stripes they
+ * need optimistically, and only retry if a change was made to those stripes
+ * while they read. After a few failed attempts they fall back to a read lock,
+ * so a reader is never starved by a steady stream of changes. The analytics
+ * read concurrent counters and maps directly.
+ * <p>
+ * Each method checks everything it can throw for before it changes anything,
+ * so the state is unchanged when an exception is thrown.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class ConcurrentSocialMedia implements SocialMediaPlatform {
+
+	//accounts indexed by handle and by id
+	final ConcurrentHashMap<String, Account> accountsByHandle = new ConcurrentHashMap<String, Account>();
+	final ConcurrentHashMap<Integer, Account> accountsByID = new ConcurrentHashMap<Integer, Account>();
+	//ids of the posts, comments and endorsements each account has made, by account id
+	final ConcurrentHashMap<Integer, Set<Integer>> postsByAccount = new ConcurrentHashMap<Integer, Set<Integer>>();
+	//live posts, comments and endorsements by id
+	final ConcurrentHashMap<Integer, ConcurrentPost> posts = new ConcurrentHashMap<Integer, ConcurrentPost>();
+	//number of live posts of each kind
+	final LongAdder originalPostCount = new LongAdder();
+	final LongAdder commentPostCount = new LongAdder();
+	final LongAdder endorsementPostCount = new LongAdder();
+	final AtomicInteger accID = new AtomicInteger();
+	final AtomicInteger postID = new AtomicInteger();
+	//snapshot the platform's contents are read from while it is mapped and not yet changed,
+	//null once they have been decoded into the maps above
+	volatile MappedSnapshot snapshot;
+	//background saves still gathering posts, which are handed the posts deleted meanwhile
+	final Set<SaveCapture> captures = ConcurrentHashMap.newKeySet();
+	//Deflater level the blocks of saved snapshots are compressed with, 0 for none
+	volatile int snapshotCompression;
+	//locks guarding handles, accounts and posts, chosen by hash. changes take them for
+	//writing, reads validate against them without locking
+	final StampedLock[] stripes;
+	final int stripeMask;
+	//optimistic reads tried before a reader takes read locks
+	static final int OPTIMISTIC_ATTEMPTS = 8;
+
+	/**
+	* Creates an empty platform with sixteen lock stripes per available processor.
+	*/
+	public ConcurrentSocialMedia() {
+		this(Runtime.getRuntime().availableProcessors() * 16);
+	}
+
+	/**
+	* Creates an empty platform with at least the given number of lock stripes.
+	* More stripes make it less likely that threads working on different accounts
+	* or posts wait for each other.
+	*
+	* @param stripeCount lowest number of lock stripes, rounded up to a power of two.
+	*/
+	public ConcurrentSocialMedia(int stripeCount) {
+		int length = 1;
+		while (length < stripeCount) {
+			length <<= 1;
+		}
+		stripes = new StampedLock[length];
+		for (int i = 0; i < length; i++) {
+			stripes[i] = new StampedLock();
+		}
+		stripeMask = length - 1;
+	}
+
+
+		// Account-related methods ****************************************
+
+	/**
+	* The method creates an account in the platform with the given handle.
+	*
+	* @param handle account’s handle.
+	* @throws IllegalHandleException if the handle already exists in the platform.
+	* @throws InvalidHandleException if the new handle is empty, has more than 30
+	* characters, or has white spaces.
+	* @return the ID of the created account.
+	*/
+	@Override
+	public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+		materialize();
+		return createAccount(handle, null);
+	}
+
+	/**
+	* The method creates an account in the platform with the given handle and
+	* description.
+	*
+	* @param handle account’s handle.
+	* @param description account’s description.
+	* @throws IllegalHandleException if the handle already exists in the platform.
+	* @throws InvalidHandleException if the new handle is empty, has more than 30
+	* characters, or has white spaces.
+	* @return the ID of the created account.
+	*/
+	@Override
+	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		materialize();
+
+		checkHandle(handle, "Handle");
+		int[] locked = lockStripes(handle.hashCode());
+		try {
+			//IllegalHandleException, checked under the handle's lock so no other thread can take it
+			if (accountsByHandle.containsKey(handle)) {
+				throw new IllegalHandleException("This handle is already in use!");
+			}
+			int id = accID.incrementAndGet();
+			Account newAccount = new ConcurrentAccount(id, handle, description, 0, 0);
+			postsByAccount.put(id, ConcurrentHashMap.<Integer>newKeySet());
+			accountsByID.put(id, newAccount);
+			accountsByHandle.put(handle, newAccount);
+			return id;
+		} finally {
+			unlockStripes(locked);
+		}
+	}
+
+	/**
+	* The method removes the account with the corresponding ID from the platform,
+	* with all of their posts and likes. No other change can run while it does.
+	*
+	* @param id ID of the account.
+	* @throws AccountIDNotRecognisedException if the ID does not match to any
+	* account in the system.
+	*/
+	@Override
+	public void removeAccount(int id) throws AccountIDNotRecognisedException {
+		materialize();
+		lockAllStripes();
+		try {
+			Account account = accountsByID.get(id);
+			//AccountIDNotRecognisedException by ID
+			if (account == null) {
+				throw new AccountIDNotRecognisedException("No account matched this Handle!");
+			}
+			removeAccountContent(account);
+		} finally {
+			unlockAllStripes();
+		}
+	}
+
+	/**
+	* The method removes the account with the corresponding handle from the
+	* platform, with all of their posts and likes. No other change can run while it
+	* does.
+	*
+	* @param handle account’s handle.
+	* @throws HandleNotRecognisedException if the handle does not match to any
+	* account in the system.
+	*/
+	@Override
+	public void removeAccount(String handle) throws HandleNotRecognisedException {
+		materialize();
+		lockAllStripes();
+		try {
+			Account account = accountsByHandle.get(handle);
+			//HandleNotRecognisedException by handle
+			if (account == null) {
+				throw new HandleNotRecognisedException("No account matched this Handle!");
+			}
+			removeAccountContent(account);
+		} finally {
+			unlockAllStripes();
+		}
+	}
+
+	//remove the posts, comments, and likes of an account, then the account itself.
+	//every stripe is held, so nothing else is locked here
+	private void removeAccountContent(Account account) {
+		int id = account.getNumericalIdentifier();
+		for (Integer postId : postsByAccount.get(id)) {
+			ConcurrentPost post = posts.get(postId);
+			if (post == null) {
+				//already deleted, or taken out earlier in this pass
+				continue;
+			}
+			if (post.kind == PostIndex.ENDORSEMENT) {
+				removeEndorsement(post);
+			} else {
+				removePost(post);
+			}
+		}
+		postsByAccount.remove(id);
+		accountsByID.remove(id);
+		accountsByHandle.remove(account.getHandle());
+	}
+
+	/**
+	* The method replaces the oldHandle of an account by the newHandle.
+	*
+	* @param oldHandle account’s old handle.
+	* @param newHandle account’s new handle.
+	* @throws HandleNotRecognisedException if the old handle does not match to any
+	* account in the system.
+	* @throws IllegalHandleException if the new handle already exists in the
+	* platform.
+	* @throws InvalidHandleException if the new handle is empty, has more
+	* than 30 characters, or has white spaces.
+	*/
+	@Override
+	public void changeAccountHandle(String oldHandle, String newHandle)
+			throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+		materialize();
+
+		checkHandle(newHandle, "New handle");
+		while (true) {
+			Account account = accountsByHandle.get(oldHandle);
+			if (account == null) {
+				if (accountsByHandle.containsKey(newHandle)) {
+					throw new IllegalHandleException("New handle is already in use!");
+				}
+				throw new HandleNotRecognisedException("No account matched this handle!");
+			}
+			int[] locked = lockStripes(oldHandle.hashCode(), newHandle.hashCode(), account.getNumericalIdentifier());
+			try {
+				//the handle was changed before the locks were taken, so look it up again
+				if (accountsByHandle.get(oldHandle) != account) {
+					continue;
+				}
+				//IllegalHandleException
+				if (accountsByHandle.containsKey(newHandle)) {
+					throw new IllegalHandleException("New handle is already in use!");
+				}
+				//the new handle is taken before the old one is let go, so it is never free
+				accountsByHandle.put(newHandle, account);
+				account.setHandle(newHandle);
+				accountsByHandle.remove(oldHandle);
+				return;
+			} finally {
+				unlockStripes(locked);
+			}
+		}
+	}
+
+	/**
+	* The method updates the description of the account with the respective handle.
+	*
+	* @param handle handle to identify the account.
+	* @param description new text for description.
+	* @throws HandleNotRecognisedException if the handle does not match to any
+	* account in the system.
+	*/
+	@Override
+	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+		materialize();
+		while (true) {
+			Account account = findAccount(handle);
+			int[] locked = lockStripes(handle.hashCode(), account.getNumericalIdentifier());
+			try {
+				if (accountsByHandle.get(handle) != account) {
+					continue;
+				}
+				account.setDescriptionField(description);
+				return;
+			} finally {
+				unlockStripes(locked);
+			}
+		}
+	}
+
+	/**
+	* The method creates a formatted string summarising the stats of the account
+	* identified by the given handle, in the same format as SocialMedia.
+	*
+	* @param handle handle to identify the account.
+	* @return the account formatted summary.
+	* @throws HandleNotRecognisedException if the handle does not match to any
+	* account in the system.
+	*/
+	@Override
+	public String showAccount(String handle) throws HandleNotRecognisedException {
+		MappedSnapshot mapped = snapshot;
+		if (mapped != null) {
+			return mapped.showAccount(handle);
+		}
+		for (int attempt = 0; ; attempt++) {
+			Account account = findAccount(handle);
+			int[] read = stripesOf(handle.hashCode(), account.getNumericalIdentifier());
+			long[] stamps = readStripes(read, attempt);
+			try {
+				if (accountsByHandle.get(handle) != account) {
+					continue;
+				}
+				String shown = SocialMedia.formatAccount(account.getNumericalIdentifier(), account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+				if (validateStripes(read, stamps)) {
+					return shown;
+				}
+			} finally {
+				unlockReadStripes(read, stamps);
+			}
+		}
+	}
+
+		// End Account-related methods ****************************************
+
+
+		// Post-related methods ****************************************
+
+	/**
+	* The method creates a post for the account identified by the given handle with
+	* the following message.
+	*
+	* @param handle handle to identify the account.
+	* @param message post message.
+	* @throws HandleNotRecognisedException if the handle does not match to any
+	* account in the system.
+	* @throws InvalidPostException if the message is empty or has more than
+	* 100 characters.
+	* @return the sequential ID of the created post.
+	*/
+	@Override
+	public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+		materialize();
+
+		checkMessage(message);
+		while (true) {
+			Account account = findAccount(handle);
+			int accountId = account.getNumericalIdentifier();
+			//the handle's stripe is shared, which keeps the account from being renamed or removed
+			int[] locked = lockStripesShared(handle.hashCode());
+			try {
+				if (accountsByHandle.get(handle) != account) {
+					continue;
+				}
+				int id = postID.incrementAndGet();
+				account.increasePostCount();
+				addPost(new ConcurrentPost(id, PostIndex.ORIGINAL, accountId, 0, message));
+				return id;
+			} finally {
+				unlockStripesShared(locked);
+			}
+		}
+	}
+
+	/**
+	* The method creates an endorsement post of an existing post. Endorsing threads
+	* only wait for each other when they endorse posts on the same lock stripe.
+	*
+	* @param handle of the account endorsing a post.
+	* @param id of the post being endorsed.
+	* @return the sequential ID of the created post.
+	* @throws HandleNotRecognisedException if the handle does not match to any
+	* account in the system.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	* @throws NotActionablePostException if the ID refers to a endorsement post.
+	*/
+	@Override
+	public int endorsePost(String handle, int id)
+			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+		materialize();
+
+		while (true) {
+			Account endorser = findAccount(handle);
+			ConcurrentPost endorsedPost = posts.get(id);
+			if (endorsedPost == null) {
+				throw new PostIDNotRecognisedException("This ID does not match any in the system!");
+			} else if (endorsedPost.kind == PostIndex.ENDORSEMENT) {
+				throw new NotActionablePostException("Endorsement posts are not endorsable!");
+			}
+			//the post's stripe is shared with other endorsers and commenters, and keeps the post
+			//from being deleted
+			int[] locked = lockStripesShared(handle.hashCode(), id);
+			try {
+				if (accountsByHandle.get(handle) != endorser) {
+					continue;
+				}
+				//the post was deleted before the locks were taken
+				if (endorsedPost.removed) {
+					throw new PostIDNotRecognisedException("This ID does not match any in the system!");
+				}
+				int endorsementId = postID.incrementAndGet();
+				String message = "EP: " + endorsedPost.message;
+				addPost(new ConcurrentPost(endorsementId, PostIndex.ENDORSEMENT, endorser.getNumericalIdentifier(), id, message));
+
+				//increase endorsement count for post and account being endorsed
+				endorsedPost.endorsements.add(endorsementId);
+				endorsedPost.endorsementCount.increment();
+				Account endorsed = accountsByID.get(endorsedPost.accountIdentifier);
+				if (endorsed != null) {
+					endorsed.increaseEndorsementCount();
+				}
+				return endorsementId;
+			} finally {
+				unlockStripesShared(locked);
+			}
+		}
+	}
+
+	/**
+	* The method creates a comment post referring to an existing post.
+	*
+	* @param handle of the account commenting a post.
+	* @param id of the post being commented.
+	* @param message the comment post message.
+	* @return the sequential ID of the created post.
+	* @throws HandleNotRecognisedException if the handle does not match to any
+	* account in the system.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	* @throws NotActionablePostException if the ID refers to a endorsement post.
+	* @throws InvalidPostException if the comment message is empty or has
+	* more than 100 characters.
+	*/
+	@Override
+	public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+		materialize();
+
+		checkMessage(message);
+		while (true) {
+			Account account = findAccount(handle);
+			ConcurrentPost commentedPost = posts.get(id);
+			if (commentedPost == null) {
+				throw new PostIDNotRecognisedException("This ID does not match any posts or comments in the system!");
+			} else if (commentedPost.kind == PostIndex.ENDORSEMENT) {
+				throw new NotActionablePostException("Endorsement posts are not commentable!");
+			}
+			int[] locked = lockStripesShared(handle.hashCode(), id);
+			try {
+				if (accountsByHandle.get(handle) != account) {
+					continue;
+				}
+				if (commentedPost.removed) {
+					throw new PostIDNotRecognisedException("This ID does not match any posts or comments in the system!");
+				}
+				int commentId = postID.incrementAndGet();
+				addPost(new ConcurrentPost(commentId, PostIndex.COMMENT, account.getNumericalIdentifier(), id, message));
+				commentedPost.comments.add(commentId);
+				commentedPost.commentCount.increment();
+				return commentId;
+			} finally {
+				unlockStripesShared(locked);
+			}
+		}
+	}
+
+	/**
+	* The method removes the post from the platform, with its endorsements. Its
+	* comments are kept, but no longer refer to it.
+	*
+	* @param id ID of post to be removed.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	*/
+	@Override
+	public void deletePost(int id) throws PostIDNotRecognisedException {
+		materialize();
+
+		ConcurrentPost post = posts.get(id);
+		if (post == null) {
+			throw new PostIDNotRecognisedException("This ID does not match any posts in the system!");
+		}
+		//lock the post and the post it refers to, waiting for threads endorsing or commenting them
+		int[] locked = lockStripes(id, post.parent);
+		try {
+			//deleted by another thread before the locks were taken
+			if (post.removed) {
+				throw new PostIDNotRecognisedException("This ID does not match any posts in the system!");
+			}
+			if (post.kind == PostIndex.ENDORSEMENT) {
+				removeEndorsement(post);
+				return;
+			}
+			removePost(post);
+			//Decrease linked Account post count, which counts only original posts
+			Account author = accountsByID.get(post.accountIdentifier);
+			if (author != null && post.kind == PostIndex.ORIGINAL) {
+				author.decreasePostCount();
+			}
+		} finally {
+			unlockStripes(locked);
+		}
+	}
+
+	/**
+	* The method generates a formated string containing the details of a single
+	* post, in the same format as SocialMedia.
+	*
+	* @param id of the post to be shown.
+	* @return a formatted string containing post’s details.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	*/
+	@Override
+	public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+		MappedSnapshot mapped = snapshot;
+		if (mapped != null) {
+			return mapped.showIndividualPost(id);
+		}
+		ConcurrentPost post = posts.get(id);
+		//Throw exception if post not found
+		if (post == null) {
+			throw new PostIDNotRecognisedException("Post ID not recognized");
+		}
+		return showPost(post);
+	}
+
+	/**
+	* The method builds a StringBuilder showing the details of the current post and
+	* all its children posts, in the same format as SocialMedia. Replies added or
+	* deleted while the thread is built may or may not be shown.
+	*
+	* @param id of the post to be shown.
+	* @return a formatted StringBuilder containing the details of the post and its
+	* children.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	* @throws NotActionablePostException if the ID refers to an endorsement post.
+	*/
+	@Override
+	public StringBuilder showPostChildrenDetails(int id)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+
+		StringBuilder str = new StringBuilder();
+		try {
+			writePostChildrenDetails(id, str, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+		} catch (IOException ioE) { //a StringBuilder never throws, so this cannot happen
+			throw new IllegalStateException("Input Output exception", ioE);
+		}
+		return str;
+	}
+
+	/**
+	* The method writes the same tree as {@link #showPostChildrenDetails(int)} into
+	* out one post at a time, limited and paged as
+	* {@link SocialMedia#writePostChildrenDetails(int, Appendable, int, int, int)} is.
+	*
+	* @param id of the post the thread starts from.
+	* @param out where the formatted posts are written, such as a Writer or StringBuilder.
+	* @param maxDepth deepest level of replies written, 0 writes only the post itself.
+	* @param offset number of posts to skip before writing.
+	* @param limit most posts to write.
+	* @return the number of posts written.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	* @throws NotActionablePostException if the ID refers to an endorsement post.
+	* @throws IOException if out cannot be written to.
+	*/
+	public int writePostChildrenDetails(int id, Appendable out, int maxDepth, int offset, int limit)
+			throws PostIDNotRecognisedException, NotActionablePostException, IOException {
+		materialize();
+
+		ConcurrentPost currentPost = posts.get(id);
+		//if post isn't found, throw exception
+		if (currentPost == null) {
+			throw new PostIDNotRecognisedException("This ID does not match any posts in the system!");
+		}
+		//if endorsement post, throw exception
+		if (currentPost.kind == PostIndex.ENDORSEMENT) {
+			throw new NotActionablePostException("This ID is for an Endorsement post!");
+		}
+
+		//walk the thread in order, keeping where each level is in its list of replies.
+		//the comment sets are concurrent, so replies deleted meanwhile are skipped
+		ArrayDeque<Iterator<Integer>> replies = new ArrayDeque<Iterator<Integer>>();
+		int position = 0;
+		int written = 0;
+		while (currentPost != null && written < limit) {
+			int depth = replies.size();
+			boolean showReplies = depth < maxDepth && !currentPost.comments.isEmpty();
+			if (position >= offset) {
+				SocialMedia.appendThreadNode(out, showPost(currentPost), depth, showReplies);
+				written++;
+			}
+			position++;
+			if (showReplies) {
+				replies.push(currentPost.comments.iterator());
+			}
+
+			//move on to the next reply, climbing up once a level has none left
+			currentPost = null;
+			while (currentPost == null && !replies.isEmpty()) {
+				Iterator<Integer> level = replies.peek();
+				if (level.hasNext()) {
+					currentPost = posts.get(level.next());
+				} else {
+					replies.pop();
+				}
+			}
+		}
+		return written;
+	}
+
+	//add a new post to the post table, its author's posts and the totals
+	private void addPost(ConcurrentPost post) {
+		posts.put(post.numericalIdentifier, post);
+		postsByAccount.get(post.accountIdentifier).add(post.numericalIdentifier);
+		if (post.kind == PostIndex.ORIGINAL) {
+			originalPostCount.increment();
+		} else if (post.kind == PostIndex.COMMENT) {
+			commentPostCount.increment();
+		} else {
+			endorsementPostCount.increment();
+		}
+	}
+
+	//remove an original post or comment with its endorsements. the caller holds the stripes
+	//of the post and the post it comments on for writing
+	private void removePost(ConcurrentPost post) {
+		for (Integer endorsementId : post.endorsements) {
+			ConcurrentPost endorsement = posts.get(endorsementId);
+			if (endorsement != null) {
+				removeEndorsement(endorsement);
+			}
+		}
+		post.removed = true;
+		retire(post);
+		posts.remove(post.numericalIdentifier);
+		if (post.kind == PostIndex.COMMENT) {
+			commentPostCount.decrement();
+			ConcurrentPost commentedPost = posts.get(post.parent);
+			if (commentedPost != null) {
+				commentedPost.comments.remove(post.numericalIdentifier);
+				commentedPost.commentCount.decrement();
+			}
+		} else {
+			originalPostCount.decrement();
+		}
+	}
+
+	//remove an endorsement, taking it off the endorsed post and account. the caller holds the
+	//stripes of the endorsement and the endorsed post for writing
+	private void removeEndorsement(ConcurrentPost endorsement) {
+		endorsement.removed = true;
+		retire(endorsement);
+		posts.remove(endorsement.numericalIdentifier);
+		endorsementPostCount.decrement();
+		ConcurrentPost endorsedPost = posts.get(endorsement.parent);
+		if (endorsedPost != null) {
+			endorsedPost.endorsements.remove(endorsement.numericalIdentifier);
+			endorsedPost.endorsementCount.decrement();
+			Account endorsed = accountsByID.get(endorsedPost.accountIdentifier);
+			if (endorsed != null) {
+				endorsed.decreaseEndorsementCount();
+			}
+		}
+	}
+
+	//format one post, reading the stripes of the post and its author
+	private String showPost(ConcurrentPost post) {
+		int[] read = stripesOf(post.numericalIdentifier, post.accountIdentifier);
+		for (int attempt = 0; ; attempt++) {
+			long[] stamps = readStripes(read, attempt);
+			try {
+				Account posterAccount = accountsByID.get(post.accountIdentifier);
+				String handle = posterAccount == null ? "" : posterAccount.getHandle();
+				String shown = SocialMedia.formatPost(post.numericalIdentifier, post.kind, handle, post.endorsementCount.intValue(), post.commentCount.intValue(), post.message);
+				if (validateStripes(read, stamps)) {
+					return shown;
+				}
+			} finally {
+				unlockReadStripes(read, stamps);
+			}
+		}
+	}
+
+		// End Post-related methods ****************************************
+
+
+		// Analytics-related methods ****************************************
+
+	/**
+	* This method returns the current total number of accounts present in the
+	* platform.
+	*
+	* @return the total number of accounts in the platform.
+	*/
+	@Override
+	public int getNumberOfAccounts() {
+		MappedSnapshot mapped = snapshot;
+		if (mapped != null) {
+			return mapped.accountCount;
+		}
+		return accountsByID.size();
+	}
+
+	/**
+	* This method returns the current total number of original posts present in
+	* the platform.
+	*
+	* @return the total number of original posts in the platform.
+	*/
+	@Override
+	public int getTotalOriginalPosts() {
+		MappedSnapshot mapped = snapshot;
+		if (mapped != null) {
+			return mapped.originalPostCount;
+		}
+		return originalPostCount.intValue();
+	}
+
+	/**
+	* This method returns the current total number of endorsement posts present in
+	* the platform.
+	*
+	* @return the total number of endorsement posts in the platform.
+	*/
+	@Override
+	public int getTotalEndorsmentPosts() {
+		MappedSnapshot mapped = snapshot;
+		if (mapped != null) {
+			return mapped.endorsementPostCount;
+		}
+		return endorsementPostCount.intValue();
+	}
+
+	/**
+	* This method returns the current total number of comments posts present in the
+	* platform.
+	*
+	* @return the total number of comments posts in the platform.
+	*/
+	@Override
+	public int getTotalCommentPosts() {
+		MappedSnapshot mapped = snapshot;
+		if (mapped != null) {
+			return mapped.commentPostCount;
+		}
+		return commentPostCount.intValue();
+	}
+
+	/**
+	* This method identifies and returns the post with the most number of
+	* endorsements, the lowest ID first on ties.
+	*
+	* @return the ID of the most popular post, 0 if no post has any endorsements.
+	*/
+	@Override
+	public int getMostEndorsedPost() {
+		int[] top = getMostEndorsedPosts(1);
+		return top.length == 0 ? 0 : top[0];
+	}
+
+	/**
+	* This method identifies and returns the account with the most number of
+	* endorsements, the lowest ID first on ties.
+	*
+	* @return the ID of the most popular account, or of the first account if none
+	* has any endorsements.
+	*/
+	@Override
+	public int getMostEndorsedAccount() {
+		int[] top = getMostEndorsedAccounts(1);
+		if (top.length > 0) {
+			return top[0];
+		}
+		//if nothing has been endorsed, fall back to the first account in id order
+		int mostEndorsed = 0;
+		for (Integer id : accountsByID.keySet()) {
+			if (mostEndorsed == 0 || id < mostEndorsed) {
+				mostEndorsed = id;
+			}
+		}
+		return mostEndorsed;
+	}
+
+	/**
+	* This method returns the most endorsed posts, most endorsed first and the
+	* lowest ID first on ties. Posts without endorsements are not included. Counts
+	* are read without locking, so endorsements made meanwhile may or may not be
+	* counted. Every live post is looked at, but only the k highest ranked so far
+	* are kept, so it takes O(n log k) time and O(k) space.
+	*
+	* @param k the most posts to return.
+	* @return the IDs of up to k most popular posts.
+	* @throws IllegalArgumentException if k is negative.
+	*/
+	public int[] getMostEndorsedPosts(int k) {
+		materialize();
+		Leaders leaders = new Leaders(k, posts.size());
+		for (ConcurrentPost post : posts.values()) {
+			leaders.offer(post.numericalIdentifier, post.endorsementCount.intValue());
+		}
+		return leaders.top();
+	}
+
+	/**
+	* This method returns the most endorsed accounts, most endorsed first and the
+	* lowest ID first on ties. Accounts without endorsements are not included. As
+	* with posts, only the k highest ranked are kept while the accounts are looked
+	* at.
+	*
+	* @param k the most accounts to return.
+	* @return the IDs of up to k most popular accounts.
+	* @throws IllegalArgumentException if k is negative.
+	*/
+	public int[] getMostEndorsedAccounts(int k) {
+		materialize();
+		Leaders leaders = new Leaders(k, accountsByID.size());
+		for (Account account : accountsByID.values()) {
+			leaders.offer(account.getNumericalIdentifier(), account.getEndorsementCount());
+		}
+		return leaders.top();
+	}
+
+	//the k highest ranked ids offered so far, each as one key with higher counts and then lower
+	//ids giving higher keys. they are kept in a min-heap, so the lowest of them is at the root
+	//and an id ranked below every one of them is turned away in constant time
+	private static class Leaders {
+
+		final int k;
+		long[] heap;
+		int size;
+
+		Leaders(int k, int expected) {
+			if (k < 0) {
+				throw new IllegalArgumentException("Number of ids to rank must not be negative!");
+			}
+			this.k = k;
+			heap = new long[Math.min(k, expected)];
+		}
+
+		//rank an id, if it has endorsements
+		void offer(int id, int count) {
+			if (count <= 0 || k == 0) {
+				return;
+			}
+			long key = ((long) count << 32) | (Integer.MAX_VALUE - id);
+			if (size < k) {
+				//the map grew while it was read
+				if (size == heap.length) {
+					heap = Arrays.copyOf(heap, (int) Math.min(k, size * 2L + 1));
+				}
+				int index = size;
+				size++;
+				while (index > 0 && heap[(index - 1) / 2] > key) {
+					heap[index] = heap[(index - 1) / 2];
+					index = (index - 1) / 2;
+				}
+				heap[index] = key;
+			} else if (key > heap[0]) {
+				int index = 0;
+				while (index * 2 + 1 < size) {
+					int child = index * 2 + 1;
+					if (child + 1 < size && heap[child + 1] < heap[child]) {
+						child++;
+					}
+					if (key < heap[child]) {
+						break;
+					}
+					heap[index] = heap[child];
+					index = child;
+				}
+				heap[index] = key;
+			}
+		}
+
+		//the ids kept, highest ranked first
+		int[] top() {
+			Arrays.sort(heap, 0, size);
+			int[] top = new int[size];
+			for (int i = 0; i < size; i++) {
+				top[i] = Integer.MAX_VALUE - (int) heap[size - 1 - i];
+			}
+			return top;
+		}
+	}
+
+		// End Analytics-related methods ****************************************
+
+
+		// Management-related methods ****************************************
+
+	/**
+	* Method empties this SocialMediaPlatform of its contents and resets all
+	* internal counters. No other change can run while it does.
+	*/
+	@Override
+	public void erasePlatform() {
+		lockAllStripes();
+		try {
+			clear();
+			unmap();
+		} finally {
+			unlockAllStripes();
+		}
+	}
+
+	/**
+	* Method saves this SocialMediaPlatform’s contents into a binary snapshot file,
+	* in the same format as SocialMedia. Changes wait only while the accounts are
+	* copied, as {@link #savePlatformAsync(String, Executor)} describes, not while
+	* the posts are gathered or the file is written.
+	*
+	* @param filename location of the file to be saved
+	* @throws IOException if there is a problem experienced when trying to save the
+	* store contents to the file
+	*/
+	@Override
+	public void savePlatform(String filename) throws IOException {
+		try {
+			savePlatformAsync(filename, Runnable::run).join();
+		} catch (CompletionException ceE) {
+			if (ceE.getCause() instanceof IOException) {
+				throw (IOException) ceE.getCause();
+			}
+			throw ceE;
+		}
+	}
+
+	/**
+	* Saves this SocialMediaPlatform’s contents into a binary snapshot file, as
+	* savePlatform does, writing it on a new thread.
+	*
+	* @param filename location of the file to be saved
+	* @return a future completed with a report of the save once the file is
+	* written, or failed with the IOException that stopped it
+	* @see #savePlatformAsync(String, Executor)
+	*/
+	public CompletableFuture<SaveReport> savePlatformAsync(String filename) {
+		return savePlatformAsync(filename, SocialMedia.SNAPSHOT_WRITER);
+	}
+
+	/**
+	* Saves this SocialMediaPlatform’s contents into a binary snapshot file, as
+	* savePlatform does, gathering the posts and writing the file on the given
+	* executor while changes carry on.
+	* <p>
+	* The file holds the platform as it was at one instant. Every stripe is held
+	* only while the accounts and ID counters are copied, which is the pause the
+	* report gives. Posts are never changed once made, so they are read from the
+	* live map afterwards: those with higher IDs than the copied counter are left
+	* out, and posts deleted meanwhile are handed to the save as they are
+	* deleted, so they are still written. If the platform is erased or loaded
+	* meanwhile, every post it had is handed to the save first, and the save
+	* stops reading the map, so none of the new contents are written.
+	*
+	* @param filename location of the file to be saved
+	* @param executor executor the snapshot is gathered and written on
+	* @return a future completed with a report of the save once the file is
+	* written, or failed with the IOException that stopped it
+	*/
+	public CompletableFuture<SaveReport> savePlatformAsync(String filename, Executor executor) {
+		materialize();
+		long start = System.nanoTime();
+		int level = snapshotCompression;
+
+		PlatformImage image = new PlatformImage();
+		SaveCapture capture;
+		lockAllStripes();
+		try {
+			//copy the accounts, as their counts keep changing once the stripes are let go
+			image.accountCounter = accID.get();
+			image.postCounter = postID.get();
+			for (int id = 1; id <= accID.get(); id++) {
+				Account account = accountsByID.get(id);
+				if (account != null) {
+					image.addAccount(id, account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+				}
+			}
+			capture = new SaveCapture(image.postCounter);
+			captures.add(capture);
+		} finally {
+			unlockAllStripes();
+		}
+		long pause = System.nanoTime() - start;
+
+		return CompletableFuture.supplyAsync(() -> {
+			ConcurrentPost[] found = new ConcurrentPost[capture.postCounter + 1];
+			try {
+				for (int id = 1; id <= capture.postCounter; id++) {
+					found[id] = posts.get(id);
+				}
+			} finally {
+				captures.remove(capture);
+			}
+			//once the contents were replaced, the map may have held new posts while it was read, but
+			//every post there was by then has been handed over
+			if (capture.replaced) {
+				Arrays.fill(found, null);
+			}
+			//a post missing from the map now was deleted after the copy, so it was handed over
+			for (ConcurrentPost post : capture.removed) {
+				if (found[post.numericalIdentifier] == null) {
+					found[post.numericalIdentifier] = post;
+				}
+			}
+			for (int id = 1; id <= capture.postCounter; id++) {
+				ConcurrentPost post = found[id];
+				if (post != null) {
+					image.addPost(id, post.kind, post.accountIdentifier, post.parent, post.message);
+				}
+			}
+			return SocialMedia.writeSnapshot(filename, image, start, pause, level);
+		}, executor);
+	}
+
+	/**
+	* Sets how the snapshots this platform saves are compressed, from 0, which
+	* stores them as they are, to 9, as {@link SocialMedia#setSnapshotCompression(int)}
+	* describes.
+	*
+	* @param level compression level from 0, for none, to 9
+	* @throws IllegalArgumentException if the level is not between 0 and 9
+	*/
+	public void setSnapshotCompression(int level) {
+		SocialMedia.checkCompressionLevel(level);
+		snapshotCompression = level;
+	}
+
+	/**
+	* Method loads and replaces this SocialMediaPlatform’s contents with the
+	* contents stored in the file given in the argument, as written by
+	* SocialMedia or this class, including files serialised by earlier versions.
+	* The file is read completely before anything is replaced, so the state is
+	* unchanged if an exception is thrown.
+	*
+	* @param filename location of the file to be loaded
+	* @throws IOException if there is a problem experienced when trying
+	* to load the store contents from the file
+	* @throws ClassNotFoundException if required class files cannot be found when
+	* loading
+	*/
+	@Override
+	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+
+		PlatformImage image = SnapshotReader.readFile(filename + ".ser");
+
+		lockAllStripes();
+		try {
+			install(image);
+			unmap();
+		} finally {
+			unlockAllStripes();
+		}
+	}
+
+	/**
+	* Replaces this SocialMediaPlatform’s contents with those of a snapshot file
+	* written by savePlatform, without reading its accounts and posts.
+	* <p>
+	* The file is mapped into memory, and showAccount, showIndividualPost and the
+	* post and account totals are answered straight from it, so this takes the
+	* same time whatever the size of the file. The first call of any other method
+	* decodes the whole file into the platform, as loadPlatform would, while
+	* every stripe is held, and then runs. Reads go on being answered from the
+	* file until it has been decoded. The state is unchanged if an exception is
+	* thrown.
+	*
+	* @param filename location of the file to be mapped
+	* @throws IOException if the file cannot be mapped or is not a snapshot file
+	* with an index, such as a file saved by earlier versions
+	*/
+	public void loadPlatformMapped(String filename) throws IOException {
+		MappedSnapshot mapped = new MappedSnapshot(filename + ".ser");
+		lockAllStripes();
+		try {
+			clear();
+			unmap();
+			snapshot = mapped;
+		} finally {
+			unlockAllStripes();
+		}
+	}
+
+	//decode a mapped snapshot into the maps before the platform is changed or fully read.
+	//readers go on using the snapshot until the maps are complete
+	private void materialize() {
+		if (snapshot == null) {
+			return;
+		}
+		lockAllStripes();
+		try {
+			if (snapshot != null) {
+				install(snapshot.read());
+				unmap();
+			}
+		} catch (IOException ioE) {
+			throw new UncheckedIOException("Mapped snapshot could not be read!", ioE);
+		} finally {
+			unlockAllStripes();
+		}
+	}
+
+	//stop reading from a mapped snapshot, if there is one. every stripe is held
+	private void unmap() {
+		MappedSnapshot mapped = snapshot;
+		if (mapped == null) {
+			return;
+		}
+		snapshot = null;
+		try {
+			mapped.close();
+		} catch (IOException ioE) { //the mapping stays readable, so there is nothing to undo
+		}
+	}
+
+	//replace the contents with those of an image. every stripe is held. the maps and sets are
+	//all concurrent, so the accounts and posts are added from the common pool: first every
+	//account and post, then, once every post is in the map, each post is linked to its parent
+	private void install(PlatformImage image) {
+		clear();
+		IntStream.range(0, image.accountCount).parallel().forEach(i -> {
+			int id = image.accountIds[i];
+			Account account = new ConcurrentAccount(id, image.handles[i], image.descriptions[i], image.postCounts[i], image.endorsementCounts[i]);
+			postsByAccount.put(id, ConcurrentHashMap.<Integer>newKeySet());
+			accountsByID.put(id, account);
+			accountsByHandle.put(account.getHandle(), account);
+		});
+		ConcurrentPost[] installed = new ConcurrentPost[image.postCount];
+		IntStream.range(0, image.postCount).parallel().forEach(i -> {
+			ConcurrentPost newPost = new ConcurrentPost(image.postIds[i], image.kinds[i], image.authors[i], image.parents[i], image.messages[i]);
+			postsByAccount.computeIfAbsent(newPost.accountIdentifier, author -> ConcurrentHashMap.<Integer>newKeySet());
+			addPost(newPost);
+			installed[i] = newPost;
+		});
+		IntStream.range(0, image.postCount).parallel().forEach(i -> {
+			ConcurrentPost newPost = installed[i];
+			ConcurrentPost parent = newPost.kind == PostIndex.ORIGINAL ? null : posts.get(newPost.parent);
+			if (parent != null && newPost.kind == PostIndex.COMMENT) {
+				parent.comments.add(newPost.numericalIdentifier);
+				parent.commentCount.increment();
+			} else if (parent != null) {
+				parent.endorsements.add(newPost.numericalIdentifier);
+				parent.endorsementCount.increment();
+			}
+		});
+		//carry on from the saved counters, which are at least the highest ids loaded
+		accID.set(Math.max(image.accountCounter, image.accountCount == 0 ? 0 : image.accountIds[image.accountCount - 1]));
+		postID.set(Math.max(image.postCounter, image.postCount == 0 ? 0 : image.postIds[image.postCount - 1]));
+	}
+
+	//hand a post about to leave the map to the saves still gathering posts, if it is old
+	//enough to be in them
+	private void retire(ConcurrentPost post) {
+		if (captures.isEmpty()) {
+			return;
+		}
+		for (SaveCapture capture : captures) {
+			if (post.numericalIdentifier <= capture.postCounter) {
+				capture.removed.add(post);
+			}
+		}
+	}
+
+	//a background save gathering posts: the post counter when it copied the accounts, the
+	//posts deleted since, and whether the platform's contents have been replaced since
+	private static class SaveCapture {
+
+		final int postCounter;
+		final ConcurrentLinkedQueue<ConcurrentPost> removed = new ConcurrentLinkedQueue<ConcurrentPost>();
+		volatile boolean replaced;
+
+		SaveCapture(int postCounter) {
+			this.postCounter = postCounter;
+		}
+	}
+
+	//forget every account and post, marking the posts removed so threads that found one
+	//before the stripes were taken do not change it. every stripe is held
+	private void clear() {
+		for (ConcurrentPost post : posts.values()) {
+			post.removed = true;
+			retire(post);
+		}
+		//the saves still gathering posts have now been handed every post they could want, so
+		//they stop reading the map and are given nothing more from the contents that replace it
+		for (SaveCapture capture : captures) {
+			capture.replaced = true;
+		}
+		captures.clear();
+		accountsByHandle.clear();
+		accountsByID.clear();
+		postsByAccount.clear();
+		posts.clear();
+		originalPostCount.reset();
+		commentPostCount.reset();
+		endorsementPostCount.reset();
+		accID.set(0);
+		postID.set(0);
+	}
+
+		// End Management-related methods ****************************************
+
+
+		// Lock-related methods ****************************************
+
+	//look up the account with a handle, throwing if there is none
+	private Account findAccount(String handle) throws HandleNotRecognisedException {
+		Account account = accountsByHandle.get(handle);
+		if (account == null) {
+			throw new HandleNotRecognisedException("No account matched this handle!");
+		}
+		return account;
+	}
+
+	//stripe for a handle's hash code or an account or post id
+	private int stripeOf(int key) {
+		int hash = key * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & stripeMask;
+	}
+
+	//stripes of the given keys in stripe order, each once
+	private int[] stripesOf(int... keys) {
+		int[] indexes = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			indexes[i] = stripeOf(keys[i]);
+		}
+		Arrays.sort(indexes);
+		int count = 0;
+		for (int i = 0; i < indexes.length; i++) {
+			if (i == 0 || indexes[i] != indexes[i - 1]) {
+				indexes[count] = indexes[i];
+				count++;
+			}
+		}
+		return Arrays.copyOf(indexes, count);
+	}
+
+	//lock the stripes of the given keys for writing, returning them for unlocking
+	private int[] lockStripes(int... keys) {
+		int[] locked = stripesOf(keys);
+		for (int i = 0; i < locked.length; i++) {
+			stripes[locked[i]].writeLock();
+		}
+		return locked;
+	}
+
+	private void unlockStripes(int[] locked) {
+		for (int i = locked.length - 1; i >= 0; i--) {
+			stripes[locked[i]].tryUnlockWrite();
+		}
+	}
+
+	//lock the stripes of the given keys for reading, so other threads can share them but no
+	//thread can lock them for writing
+	private int[] lockStripesShared(int... keys) {
+		int[] locked = stripesOf(keys);
+		for (int i = 0; i < locked.length; i++) {
+			stripes[locked[i]].readLock();
+		}
+		return locked;
+	}
+
+	private void unlockStripesShared(int[] locked) {
+		for (int i = locked.length - 1; i >= 0; i--) {
+			stripes[locked[i]].tryUnlockRead();
+		}
+	}
+
+	private void lockAllStripes() {
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i].writeLock();
+		}
+	}
+
+	private void unlockAllStripes() {
+		for (int i = stripes.length - 1; i >= 0; i--) {
+			stripes[i].tryUnlockWrite();
+		}
+	}
+
+	//start reading the stripes, optimistically for the first few attempts and then under read
+	//locks, which validate at once and must be let go with unlockReadStripes
+	private long[] readStripes(int[] read, int attempt) {
+		long[] stamps = new long[read.length];
+		for (int i = 0; i < read.length; i++) {
+			if (attempt < OPTIMISTIC_ATTEMPTS) {
+				stamps[i] = stripes[read[i]].tryOptimisticRead();
+			} else {
+				stamps[i] = stripes[read[i]].readLock();
+			}
+		}
+		return stamps;
+	}
+
+	//whether no stripe was written since its stamp was taken
+	private boolean validateStripes(int[] read, long[] stamps) {
+		for (int i = 0; i < read.length; i++) {
+			if (!stripes[read[i]].validate(stamps[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void unlockReadStripes(int[] read, long[] stamps) {
+		for (int i = read.length - 1; i >= 0; i--) {
+			if (StampedLock.isReadLockStamp(stamps[i])) {
+				stripes[read[i]].unlockRead(stamps[i]);
+			}
+		}
+	}
+
+	//InvalidHandleException Tests, with name saying which handle is checked
+	private static void checkHandle(String handle, String name) throws InvalidHandleException {
+		if (handle.length() == 0) {
+			throw new InvalidHandleException(name + " cannot be empty!");
+		} else if (handle.length() > 30) {
+			throw new InvalidHandleException(name + " cannot be longer than 30 characters!");
+		}
+		for (int index = 0; index < handle.length(); index++) {
+			if (Character.isWhitespace(handle.charAt(index))) {
+				throw new InvalidHandleException(name + " cannot contain white space!");
+			}
+		}
+	}
+
+	//InvalidPostException Tests
+	private static void checkMessage(String message) throws InvalidPostException {
+		if (message.length() == 0) {
+			throw new InvalidPostException("Post message cannot be empty!");
+		} else if (message.length() > 100) {
+			throw new InvalidPostException("Post message cannot be longer than 100 characters!!");
+		}
+	}
+
+		// End Lock-related methods ****************************************
+
+}
@@ -3,21 +3,18 @@ package socialmedia;
 //extend post to implement serializable and get super methods and variables
 public class Endorsement extends Post{
 
+    //kept as it was before the fields moved out, like Post's
+    private static final long serialVersionUID = -2253579629205744216L;
+
+    //shared placeholder for every removed endorsement
+    public static final Endorsement REMOVED = new Endorsement(-1, -1, REMOVED_MESSAGE, -1);
+
     //id variable
     public int originalID;
 
-    //create empty endorsement constructor for removed endorsements
-    public Endorsement(){
-        numericalIdentifier = -1;
-        accountIdentifier = -1;
-        accountHandle = "";
-        message = "The original content was removed from the system and is no longer available.";
-        originalID = -1;
-    }
-
-    //create endorsement using id, account id, account handle, message, and original id
-    public Endorsement(int numericalIdentifier, int accountIdentifier, String accountHandle, String message, int originalID){
-        super(numericalIdentifier, accountIdentifier, accountHandle, message);
+    //create endorsement using id, account id, message, and original id
+    public Endorsement(int numericalIdentifier, int accountIdentifier, String message, int originalID){
+        super(numericalIdentifier, accountIdentifier, message);
         this.originalID = originalID;
     }
 
@@ -25,4 +22,12 @@ public class Endorsement extends Post{
     public int getOriginalID(){
         return originalID;
     }
+
+    //keep removed endorsements shared when a platform is loaded
+    protected Object readResolve(){
+        if (numericalIdentifier == -1) {
+            return REMOVED;
+        }
+        return this;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package socialmedia;
+
+import java.io.Serializable;
+import java.util.PriorityQueue;
+
+//ranking of post or account ids by how many endorsements they have, kept up to date one
+//endorsement at a time so the most endorsed id is found in constant time and the top k in
+//O(k log k), however many ids are tied
+//
+//ids are grouped into buckets by their count, and the non-empty buckets are linked in count
+//order. an endorsement only ever moves an id to the neighbouring bucket. ties are broken by the
+//lowest id, which depends only on the counts and not on the order endorsements were made in,
+//so a ranking rebuilt after loading agrees with the one kept before saving. each bucket is a
+//min-heap of its ids, so moving an id costs O(log n) in the size of the buckets, the lowest id
+//is at the root, and the lowest few can be read off the top of the heap without sorting the
+//rest. ids with no endorsements are not ranked
+public class EndorsementRanking implements Serializable{
+
+    //variables, by id
+    public int[] counts;
+    //where each id is in the heap of its bucket
+    public int[] heapIndexes;
+    //variables, by count
+    public int[][] heaps;
+    public int[] bucketSizes;
+    public int[] higherCounts;
+    public int[] lowerCounts;
+    //highest and lowest counts with any ids, 0 when nothing is ranked
+    public int highestCount;
+    public int lowestCount;
+    //number of ids ranked
+    public int size;
+
+    //create empty ranking
+    public EndorsementRanking(){
+        clear();
+    }
+
+    //getter methods
+    public int countOf(int id){
+        if (id <= 0 || id >= counts.length) {
+            return 0;
+        }
+        return counts[id];
+    }
+
+    //id with the most endorsements, the lowest on ties, or 0 if nothing has been endorsed
+    public int top(){
+        if (highestCount == 0) {
+            return 0;
+        }
+        return heaps[highestCount][0];
+    }
+
+    //up to k ids in ranking order, most endorsed first and the lowest id first on ties
+    public int[] top(int k){
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of ids to rank must not be negative!");
+        }
+        int[] top = new int[Math.min(k, size)];
+        int found = 0;
+        int count = highestCount;
+        while (count != 0 && found < top.length) {
+            found = lowestOf(count, top, found, Math.min(top.length - found, bucketSizes[count]));
+            count = lowerCounts[count];
+        }
+        return top;
+    }
+
+    //counting methods to increase or decrease
+    public void increase(int id){
+        if (id >= counts.length) {
+            growIds(id);
+        }
+        move(id, counts[id], counts[id] + 1);
+    }
+
+    public void decrease(int id){
+        if (countOf(id) > 0) {
+            move(id, counts[id], counts[id] - 1);
+        }
+    }
+
+    //stop ranking an id, such as a deleted post or removed account
+    public void remove(int id){
+        if (countOf(id) > 0) {
+            move(id, counts[id], 0);
+        }
+    }
+
+    //forget every id
+    public void clear(){
+        counts = new int[16];
+        heapIndexes = new int[16];
+        heaps = new int[16][];
+        bucketSizes = new int[16];
+        higherCounts = new int[16];
+        lowerCounts = new int[16];
+        highestCount = 0;
+        lowestCount = 0;
+        size = 0;
+    }
+
+    //copy the wanted lowest ids of a bucket, in order, into an array from an index, returning
+    //the index after. a heap's lowest ids are found by a walk down from the root that always
+    //takes the lowest id seen but not taken, which only ever looks at their children
+    private int lowestOf(int count, int[] into, int index, int wanted){
+        int[] heap = heaps[count];
+        PriorityQueue<Integer> seen = new PriorityQueue<Integer>();
+        seen.add(heap[0]);
+        for (int i = 0; i < wanted; i++) {
+            int id = seen.poll();
+            into[index] = id;
+            index++;
+            int child = heapIndexes[id] * 2 + 1;
+            if (child < bucketSizes[count]) {
+                seen.add(heap[child]);
+            }
+            if (child + 1 < bucketSizes[count]) {
+                seen.add(heap[child + 1]);
+            }
+        }
+        return index;
+    }
+
+    //move id from the bucket for one count to the bucket for another, where the new count is
+    //next to the old one or 0. the new bucket is linked in while the old one still holds id,
+    //so its neighbours are known
+    private void move(int id, int from, int to){
+        if (to > 0) {
+            if (to >= bucketSizes.length) {
+                growCounts(to);
+            }
+            if (bucketSizes[to] == 0) {
+                int lower;
+                int higher;
+                if (from == 0) {
+                    lower = 0;
+                    higher = lowestCount;
+                } else if (to > from) {
+                    lower = from;
+                    higher = higherCounts[from];
+                } else {
+                    lower = lowerCounts[from];
+                    higher = from;
+                }
+                lowerCounts[to] = lower;
+                higherCounts[to] = higher;
+                if (lower == 0) {
+                    lowestCount = to;
+                } else {
+                    higherCounts[lower] = to;
+                }
+                if (higher == 0) {
+                    highestCount = to;
+                } else {
+                    lowerCounts[higher] = to;
+                }
+            }
+        }
+        if (from > 0) {
+            unlink(id, from);
+        }
+        if (to > 0) {
+            push(id, to);
+        }
+        if (from == 0 && to > 0) {
+            size++;
+        } else if (from > 0 && to == 0) {
+            size--;
+        }
+        counts[id] = to;
+    }
+
+    //add id to the heap of its bucket
+    private void push(int id, int count){
+        int[] heap = heaps[count];
+        if (heap == null) {
+            heap = new int[4];
+        } else if (bucketSizes[count] == heap.length) {
+            heap = grow(heap, heap.length * 2);
+        }
+        heaps[count] = heap;
+        place(heap, bucketSizes[count], id);
+        bucketSizes[count]++;
+        siftUp(heap, heapIndexes[id]);
+    }
+
+    //take id out of its bucket, unlinking the bucket if it is left empty
+    private void unlink(int id, int count){
+        int[] heap = heaps[count];
+        int index = heapIndexes[id];
+        bucketSizes[count]--;
+        int last = bucketSizes[count];
+        if (index != last) {
+            int moved = heap[last];
+            place(heap, index, moved);
+            siftDown(heap, index, last);
+            siftUp(heap, heapIndexes[moved]);
+        }
+        if (bucketSizes[count] == 0) {
+            heaps[count] = null;
+            int lower = lowerCounts[count];
+            int higher = higherCounts[count];
+            if (lower == 0) {
+                lowestCount = higher;
+            } else {
+                higherCounts[lower] = higher;
+            }
+            if (higher == 0) {
+                highestCount = lower;
+            } else {
+                lowerCounts[higher] = lower;
+            }
+        }
+    }
+
+    //heap methods, keeping each id's place in heapIndexes as it moves
+    private void place(int[] heap, int index, int id){
+        heap[index] = id;
+        heapIndexes[id] = index;
+    }
+
+    private void siftUp(int[] heap, int index){
+        int id = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] < id) {
+                break;
+            }
+            place(heap, index, heap[parent]);
+            index = parent;
+        }
+        place(heap, index, id);
+    }
+
+    private void siftDown(int[] heap, int index, int length){
+        int id = heap[index];
+        while (index * 2 + 1 < length) {
+            int child = index * 2 + 1;
+            if (child + 1 < length && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (id < heap[child]) {
+                break;
+            }
+            place(heap, index, heap[child]);
+            index = child;
+        }
+        place(heap, index, id);
+    }
+
+    //grow the tables to fit id or count, doubling so changes stay amortised constant time
+    private void growIds(int id){
+        int length = Math.max(id + 1, counts.length * 2);
+        counts = grow(counts, length);
+        heapIndexes = grow(heapIndexes, length);
+    }
+
+    private void growCounts(int count){
+        int length = Math.max(count + 1, bucketSizes.length * 2);
+        int[][] grownHeaps = new int[length][];
+        System.arraycopy(heaps, 0, grownHeaps, 0, heaps.length);
+        heaps = grownHeaps;
+        bucketSizes = grow(bucketSizes, length);
+        higherCounts = grow(higherCounts, length);
+        lowerCounts = grow(lowerCounts, length);
+    }
+
+    private static int[] grow(int[] table, int length){
+        int[] grown = new int[length];
+        System.arraycopy(table, 0, grown, 0, table.length);
+        return grown;
+    }
+
+}
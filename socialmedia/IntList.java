@@ -0,0 +1,48 @@
+package socialmedia;
+
+import java.io.Serializable;
+
+//growable list of ints, used where an ArrayList<Integer> would box every element
+public class IntList implements Serializable{
+
+    //variables
+    public int[] values;
+    public int size;
+
+    //create empty list
+    public IntList(){
+        values = new int[4];
+    }
+
+    //getter methods
+    public int get(int index){
+        return values[index];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    //add value to the end of the list, doubling the storage when it is full
+    public void add(int value){
+        if (size == values.length) {
+            int[] grown = new int[values.length * 2];
+            System.arraycopy(values, 0, grown, 0, size);
+            values = grown;
+        }
+        values[size] = value;
+        size++;
+    }
+
+    //add every value of another list to the end of this one
+    public void addAll(IntList other){
+        for (int i = 0; i < other.size; i++) {
+            add(other.values[i]);
+        }
+    }
+
+    public void clear(){
+        size = 0;
+    }
+
+}
@@ -0,0 +1,370 @@
+package socialmedia;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal is an append-only file of records, each made durable with fsync in
+ * groups rather than one at a time.
+ * <p>
+ * The file starts with a header holding a generation number, which the owner
+ * of the journal uses to tell which snapshot its records follow. Each record is
+ * written as its length, a CRC32C of its contents and the contents. A record
+ * cut short or damaged by a crash fails its check, so it and everything after
+ * it are dropped when the journal is replayed.
+ * <p>
+ * Appending only copies the record into memory. A background thread writes
+ * the appended records and forces them to disk once syncEvery records are
+ * waiting, or once the oldest has waited syncMillis milliseconds, whichever is
+ * first. With syncMillis of 0 it syncs whenever anything is waiting, so every
+ * record appended while one sync runs goes into the next. Callers that need a
+ * record to be durable wait for it with {@link #awaitDurable(long)}.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class Journal {
+
+	static final byte[] MAGIC = {'S', 'M', 'J', 'L'};
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 12;
+	static final int RECORD_HEADER_SIZE = 8;
+
+	final FileChannel channel;
+	final int syncEvery;
+	final long syncMillis;
+	int generation;
+	//records appended but not yet handed to the background thread
+	ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+	int pendingRecords;
+	long oldestPending;
+	//sequence numbers of the last record appended and the last made durable
+	long appended;
+	long durable;
+	//number of syncs made, and the failure that stopped the journal, if any
+	long syncs;
+	IOException failure;
+	boolean closed;
+	final Thread syncer;
+
+	/**
+	* Opens the journal at the given path, creating it with generation 0 if it
+	* does not exist. Its records should be replayed with
+	* {@link #replay(RecordVisitor)} before any are appended.
+	*
+	* @param path location of the journal file.
+	* @param syncEvery number of waiting records that starts a sync at once.
+	* @param syncMillis most milliseconds a record waits before it is synced.
+	* @throws IOException if the file cannot be opened or is not a journal.
+	*/
+	public Journal(String path, int syncEvery, long syncMillis) throws IOException {
+		if (syncEvery < 1 || syncMillis < 0) {
+			throw new IllegalArgumentException("Journal needs syncEvery of at least 1 and syncMillis of at least 0!");
+		}
+		this.syncEvery = syncEvery;
+		this.syncMillis = syncMillis;
+		channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (channel.size() == 0) {
+				writeHeader(0);
+			} else {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				readFully(header, 0);
+				for (int i = 0; i < MAGIC.length; i++) {
+					if (header.get(i) != MAGIC[i]) {
+						throw new IOException("Not a platform journal!");
+					}
+				}
+				if (header.getInt(4) != VERSION) {
+					throw new IOException("Unsupported journal version " + header.getInt(4) + "!");
+				}
+				generation = header.getInt(8);
+				//appends go after the last record, once replay has cut off any damaged ones
+				channel.position(channel.size());
+			}
+		} catch (IOException ioE) {
+			channel.close();
+			throw ioE;
+		}
+		syncer = new Thread(this::syncLoop, "journal-sync");
+		syncer.setDaemon(true);
+		syncer.start();
+	}
+
+	/**
+	* @return the generation written in the header, set by {@link #truncate(int)}.
+	*/
+	public synchronized int getGeneration() {
+		return generation;
+	}
+
+	/**
+	* @return the number of times records have been forced to disk.
+	*/
+	public synchronized long getSyncs() {
+		return syncs;
+	}
+
+	/**
+	* @return the number of records appended since the journal was opened.
+	*/
+	public synchronized long getAppended() {
+		return appended;
+	}
+
+	/**
+	* Reads every intact record from the start of the journal, in the order they
+	* were appended. A record cut short or failing its check ends the journal: it
+	* and anything after it are cut off the file, so later appends follow the last
+	* intact record.
+	*
+	* @param visitor called with the contents of each record.
+	* @return the number of records read.
+	* @throws IOException if the file cannot be read, or the visitor fails.
+	*/
+	public synchronized int replay(RecordVisitor visitor) throws IOException {
+		long size = channel.size();
+		long position = HEADER_SIZE;
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		CRC32C crc = new CRC32C();
+		int records = 0;
+		while (position + RECORD_HEADER_SIZE <= size) {
+			header.clear();
+			readFully(header, position);
+			int length = header.getInt(0);
+			if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+				break;
+			}
+			ByteBuffer contents = ByteBuffer.allocate(length);
+			readFully(contents, position + RECORD_HEADER_SIZE);
+			crc.reset();
+			crc.update(contents.array(), 0, length);
+			if ((int) crc.getValue() != header.getInt(4)) {
+				break;
+			}
+			visitor.visit(contents.array());
+			position += RECORD_HEADER_SIZE + length;
+			records++;
+		}
+		if (position < size) {
+			channel.truncate(position);
+			channel.force(false);
+		}
+		channel.position(position);
+		return records;
+	}
+
+	/**
+	* Appends a record, to be written and synced by the background thread.
+	*
+	* @param contents the record's contents.
+	* @return the record's sequence number, to pass to {@link #awaitDurable(long)}.
+	* @throws IOException if the journal has failed or been closed.
+	*/
+	public synchronized long append(byte[] contents) throws IOException {
+		checkOpen();
+		if (pending.remaining() < RECORD_HEADER_SIZE + contents.length) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER_SIZE + contents.length));
+			pending.flip();
+			grown.put(pending);
+			pending = grown;
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(contents, 0, contents.length);
+		pending.putInt(contents.length);
+		pending.putInt((int) crc.getValue());
+		pending.put(contents);
+		if (pendingRecords == 0) {
+			oldestPending = System.nanoTime();
+		}
+		pendingRecords++;
+		appended++;
+		notifyAll();
+		return appended;
+	}
+
+	/**
+	* Checks that records can still be appended.
+	*
+	* @throws IOException if the journal has failed or been closed.
+	*/
+	public synchronized void checkAppendable() throws IOException {
+		checkOpen();
+	}
+
+	/**
+	* Waits until the record with the given sequence number, and every record
+	* before it, has been forced to disk.
+	*
+	* @param sequence sequence number returned by {@link #append(byte[])}.
+	* @throws IOException if the journal failed before the record was synced.
+	*/
+	public synchronized void awaitDurable(long sequence) throws IOException {
+		boolean interrupted = false;
+		while (durable < sequence) {
+			checkOpen();
+			try {
+				wait();
+			} catch (InterruptedException iE) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	* Waits until every record appended so far has been forced to disk.
+	*
+	* @throws IOException if the journal failed before they were synced.
+	*/
+	public void sync() throws IOException {
+		long last;
+		synchronized (this) {
+			last = appended;
+		}
+		awaitDurable(last);
+	}
+
+	/**
+	* Removes every record, once those appended so far are durable, and writes a
+	* new generation into the header.
+	*
+	* @param generation the generation the journal's next records follow.
+	* @throws IOException if the journal has failed or cannot be written.
+	*/
+	public synchronized void truncate(int generation) throws IOException {
+		sync();
+		//cut the records off before the header changes, so a crash in between leaves the old
+		//generation with no records rather than the new one with old records
+		channel.truncate(HEADER_SIZE);
+		channel.force(false);
+		writeHeader(generation);
+	}
+
+	/**
+	* Syncs every record appended so far and closes the file.
+	*
+	* @throws IOException if the records cannot be synced or the file closed.
+	*/
+	public void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			synchronized (this) {
+				closed = true;
+				notifyAll();
+			}
+			try {
+				syncer.join();
+			} catch (InterruptedException iE) {
+				Thread.currentThread().interrupt();
+			}
+			channel.close();
+		}
+	}
+
+	/**
+	* Receives the contents of each record as the journal is replayed.
+	*/
+	public interface RecordVisitor {
+		/**
+		* @param contents the contents of one record.
+		* @throws IOException if the record cannot be applied.
+		*/
+		void visit(byte[] contents) throws IOException;
+	}
+
+	//write the header at the start of the file, leaving the channel after it. the lock is held
+	private void writeHeader(int newGeneration) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.put(MAGIC).putInt(VERSION).putInt(newGeneration).flip();
+		channel.position(0);
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		channel.force(true);
+		generation = newGeneration;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Journal ends early!");
+			}
+		}
+	}
+
+	private void checkOpen() throws IOException {
+		if (failure != null) {
+			throw new IOException("Journal has failed!", failure);
+		}
+		if (closed) {
+			throw new IOException("Journal is closed!");
+		}
+	}
+
+	//the background thread: wait for enough records, or for the oldest to be old enough, then
+	//write and force them outside the lock, so appends carry on into a fresh buffer meanwhile
+	private void syncLoop() {
+		ByteBuffer writing = ByteBuffer.allocate(pending.capacity());
+		while (true) {
+			long last;
+			synchronized (this) {
+				try {
+					while (!closed && failure == null && !due()) {
+						if (pendingRecords == 0 || syncMillis == 0) {
+							wait();
+						} else {
+							long waitNanos = oldestPending + syncMillis * 1000000L - System.nanoTime();
+							wait(Math.max(1, waitNanos / 1000000L));
+						}
+					}
+				} catch (InterruptedException iE) {
+					return;
+				}
+				if (failure != null || (closed && pendingRecords == 0)) {
+					return;
+				}
+				ByteBuffer full = pending;
+				writing.clear();
+				pending = writing;
+				writing = full;
+				pendingRecords = 0;
+				last = appended;
+			}
+			try {
+				writing.flip();
+				while (writing.hasRemaining()) {
+					channel.write(writing);
+				}
+				channel.force(false);
+				synchronized (this) {
+					durable = last;
+					syncs++;
+					notifyAll();
+				}
+			} catch (IOException ioE) {
+				synchronized (this) {
+					failure = ioE;
+					notifyAll();
+				}
+				return;
+			}
+		}
+	}
+
+	//whether the waiting records should be synced now. the lock is held
+	private boolean due() {
+		if (pendingRecords == 0) {
+			return false;
+		}
+		return closed || syncMillis == 0 || pendingRecords >= syncEvery || System.nanoTime() - oldestPending >= syncMillis * 1000000L;
+	}
+
+}
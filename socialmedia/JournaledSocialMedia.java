@@ -0,0 +1,542 @@
+package socialmedia;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JournaledSocialMedia is an implementor of the SocialMediaPlatform interface
+ * that makes the changes to a wrapped platform durable as they are made, by
+ * recording each one in a {@link Journal} before it returns.
+ * <p>
+ * Its files are named after a base filename. <code>filename.journal</code>
+ * holds the changes made since the last checkpoint, and
+ * <code>filename-N.ser</code> is the snapshot saved by checkpoint number N,
+ * which the journal's generation names. Opening the platform loads that
+ * snapshot and replays the journal on top of it, so a crash loses nothing that
+ * had returned. {@link #checkpoint()} saves a new snapshot and truncates the
+ * journal. If it is cut short by a crash, the snapshot and journal it was
+ * replacing are still found and used, and once the new snapshot is complete the
+ * old journal is ignored.
+ * <p>
+ * Changes are recorded in the order they are made to the wrapped platform: a
+ * change and its record are made under one lock, so the IDs handed out on
+ * replay are the ones handed out the first time. Waiting for the record to be
+ * synced happens after the lock is let go, so threads making changes at once
+ * share each sync.
+ * <p>
+ * Each change first checks that the journal has not failed or been closed, and
+ * is refused with an UncheckedIOException, leaving the platform unchanged, if
+ * it has. A change is made to the wrapped platform before it is recorded, so
+ * if the journal fails after that check, while the record is appended or
+ * synced, the change stays in the platform but is not durable: it is lost if
+ * the platform is reopened before the next checkpoint.
+ * <p>
+ * Reads go straight to the wrapped platform, so this is as
+ * thread-safe as the platform it wraps.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class JournaledSocialMedia implements SocialMediaPlatform {
+
+	//kinds of record in the journal
+	static final byte CREATE_ACCOUNT = 1;
+	static final byte CREATE_ACCOUNT_DESCRIBED = 2;
+	static final byte REMOVE_ACCOUNT_ID = 3;
+	static final byte REMOVE_ACCOUNT_HANDLE = 4;
+	static final byte CHANGE_ACCOUNT_HANDLE = 5;
+	static final byte UPDATE_ACCOUNT_DESCRIPTION = 6;
+	static final byte CREATE_POST = 7;
+	static final byte ENDORSE_POST = 8;
+	static final byte COMMENT_POST = 9;
+	static final byte DELETE_POST = 10;
+	static final byte ERASE_PLATFORM = 11;
+
+	final SocialMediaPlatform platform;
+	final String filename;
+	final Journal journal;
+	//held while a change is made and recorded, so records follow the order of changes
+	final ReentrantLock changes = new ReentrantLock();
+
+	/**
+	* Opens the journaled platform with the given base filename, syncing whatever
+	* has been recorded as soon as the previous sync finishes.
+	*
+	* @param platform empty platform the snapshot and journal are loaded into.
+	* @param filename base filename of the snapshot and journal files.
+	* @throws IOException if the snapshot or journal cannot be read.
+	* @throws ClassNotFoundException if the snapshot cannot be loaded.
+	*/
+	public JournaledSocialMedia(SocialMediaPlatform platform, String filename) throws IOException, ClassNotFoundException {
+		this(platform, filename, 256, 0);
+	}
+
+	/**
+	* Opens the journaled platform with the given base filename: loads the last
+	* complete snapshot, if any, and replays the journal on top of it.
+	*
+	* @param platform empty platform the snapshot and journal are loaded into.
+	* @param filename base filename of the snapshot and journal files.
+	* @param syncEvery number of waiting records that starts a sync at once.
+	* @param syncMillis most milliseconds a change waits for its record to be synced.
+	* @throws IOException if the snapshot or journal cannot be read.
+	* @throws ClassNotFoundException if the snapshot cannot be loaded.
+	*/
+	public JournaledSocialMedia(SocialMediaPlatform platform, String filename, int syncEvery, long syncMillis) throws IOException, ClassNotFoundException {
+		this.platform = platform;
+		this.filename = filename;
+		journal = new Journal(filename + ".journal", syncEvery, syncMillis);
+		try {
+			int generation = journal.getGeneration();
+			if (Files.exists(Paths.get(snapshotName(generation + 1) + ".ser"))) {
+				//a checkpoint saved its snapshot but did not get to truncate the journal
+				platform.loadPlatform(snapshotName(generation + 1));
+				journal.truncate(generation + 1);
+				Files.deleteIfExists(Paths.get(snapshotName(generation) + ".ser"));
+			} else {
+				if (Files.exists(Paths.get(snapshotName(generation) + ".ser"))) {
+					platform.loadPlatform(snapshotName(generation));
+				} else if (generation > 0) {
+					throw new IOException("Snapshot " + snapshotName(generation) + ".ser for the journal is missing!");
+				}
+				journal.replay(this::apply);
+			}
+		} catch (IOException | ClassNotFoundException | RuntimeException e) {
+			journal.close();
+			throw e;
+		}
+	}
+
+	/**
+	* Saves the platform's contents as a new snapshot and truncates the journal,
+	* so reopening no longer has to replay the changes made so far. Changes wait
+	* while it runs.
+	*
+	* @throws IOException if the snapshot cannot be saved or the journal truncated.
+	*/
+	public void checkpoint() throws IOException {
+		changes.lock();
+		try {
+			journal.sync();
+			int generation = journal.getGeneration();
+			platform.savePlatform(snapshotName(generation + 1));
+			journal.truncate(generation + 1);
+			Files.deleteIfExists(Paths.get(snapshotName(generation) + ".ser"));
+		} finally {
+			changes.unlock();
+		}
+	}
+
+	/**
+	* Syncs the journal and closes it, once any change being made has been
+	* recorded. Changes made afterwards fail.
+	*
+	* @throws IOException if the journal cannot be synced or closed.
+	*/
+	public void close() throws IOException {
+		changes.lock();
+		try {
+			journal.close();
+		} finally {
+			changes.unlock();
+		}
+	}
+
+	/**
+	* @return the journal the changes are recorded in.
+	*/
+	public Journal getJournal() {
+		return journal;
+	}
+
+
+		// Account-related methods ****************************************
+
+	@Override
+	public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+		changes.lock();
+		long sequence;
+		int id;
+		try {
+			checkJournal();
+			id = platform.createAccount(handle);
+			sequence = record(CREATE_ACCOUNT, handle);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+		return id;
+	}
+
+	@Override
+	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		changes.lock();
+		long sequence;
+		int id;
+		try {
+			checkJournal();
+			id = platform.createAccount(handle, description);
+			sequence = record(CREATE_ACCOUNT_DESCRIBED, handle, description);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+		return id;
+	}
+
+	@Override
+	public void removeAccount(int id) throws AccountIDNotRecognisedException {
+		changes.lock();
+		long sequence;
+		try {
+			checkJournal();
+			platform.removeAccount(id);
+			sequence = record(REMOVE_ACCOUNT_ID, id);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public void removeAccount(String handle) throws HandleNotRecognisedException {
+		changes.lock();
+		long sequence;
+		try {
+			checkJournal();
+			platform.removeAccount(handle);
+			sequence = record(REMOVE_ACCOUNT_HANDLE, handle);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public void changeAccountHandle(String oldHandle, String newHandle)
+			throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+		changes.lock();
+		long sequence;
+		try {
+			checkJournal();
+			platform.changeAccountHandle(oldHandle, newHandle);
+			sequence = record(CHANGE_ACCOUNT_HANDLE, oldHandle, newHandle);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+		changes.lock();
+		long sequence;
+		try {
+			checkJournal();
+			platform.updateAccountDescription(handle, description);
+			sequence = record(UPDATE_ACCOUNT_DESCRIPTION, handle, description);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public String showAccount(String handle) throws HandleNotRecognisedException {
+		return platform.showAccount(handle);
+	}
+
+		// End Account-related methods ****************************************
+
+
+		// Post-related methods ****************************************
+
+	@Override
+	public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+		changes.lock();
+		long sequence;
+		int id;
+		try {
+			checkJournal();
+			id = platform.createPost(handle, message);
+			sequence = record(CREATE_POST, handle, message);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+		return id;
+	}
+
+	@Override
+	public int endorsePost(String handle, int id)
+			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+		changes.lock();
+		long sequence;
+		int endorsement;
+		try {
+			checkJournal();
+			endorsement = platform.endorsePost(handle, id);
+			sequence = record(ENDORSE_POST, handle, id);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+		return endorsement;
+	}
+
+	@Override
+	public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+		changes.lock();
+		long sequence;
+		int comment;
+		try {
+			checkJournal();
+			comment = platform.commentPost(handle, id, message);
+			sequence = record(COMMENT_POST, handle, id, message);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+		return comment;
+	}
+
+	@Override
+	public void deletePost(int id) throws PostIDNotRecognisedException {
+		changes.lock();
+		long sequence;
+		try {
+			checkJournal();
+			platform.deletePost(id);
+			sequence = record(DELETE_POST, id);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	@Override
+	public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+		return platform.showIndividualPost(id);
+	}
+
+	@Override
+	public StringBuilder showPostChildrenDetails(int id)
+			throws PostIDNotRecognisedException, NotActionablePostException {
+		return platform.showPostChildrenDetails(id);
+	}
+
+		// End Post-related methods ****************************************
+
+
+		// Analytics-related methods ****************************************
+
+	@Override
+	public int getNumberOfAccounts() {
+		return platform.getNumberOfAccounts();
+	}
+
+	@Override
+	public int getTotalOriginalPosts() {
+		return platform.getTotalOriginalPosts();
+	}
+
+	@Override
+	public int getTotalEndorsmentPosts() {
+		return platform.getTotalEndorsmentPosts();
+	}
+
+	@Override
+	public int getTotalCommentPosts() {
+		return platform.getTotalCommentPosts();
+	}
+
+	@Override
+	public int getMostEndorsedPost() {
+		return platform.getMostEndorsedPost();
+	}
+
+	@Override
+	public int getMostEndorsedAccount() {
+		return platform.getMostEndorsedAccount();
+	}
+
+		// End Analytics-related methods ****************************************
+
+
+		// Management-related methods ****************************************
+
+	/**
+	* Method empties this SocialMediaPlatform of its contents and resets all
+	* internal counters, recording this in the journal like any other change.
+	*/
+	@Override
+	public void erasePlatform() {
+		changes.lock();
+		long sequence;
+		try {
+			checkJournal();
+			platform.erasePlatform();
+			sequence = record(ERASE_PLATFORM);
+		} finally {
+			changes.unlock();
+		}
+		awaitDurable(sequence);
+	}
+
+	/**
+	* Method saves this SocialMediaPlatform’s contents into a file, as the wrapped
+	* platform does. This does not change the journal; see {@link #checkpoint()}.
+	*
+	* @param filename location of the file to be saved
+	* @throws IOException if there is a problem experienced when trying to save the
+	* store contents to the file
+	*/
+	@Override
+	public void savePlatform(String filename) throws IOException {
+		platform.savePlatform(filename);
+	}
+
+	/**
+	* Method loads and replaces this SocialMediaPlatform’s contents with those of
+	* the file given in the argument, then checkpoints, so the loaded contents are
+	* what reopening the platform starts from.
+	*
+	* @param filename location of the file to be loaded
+	* @throws IOException if there is a problem experienced when trying
+	* to load the store contents from the file, or to checkpoint
+	* @throws ClassNotFoundException if required class files cannot be found when
+	* loading
+	*/
+	@Override
+	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+		changes.lock();
+		try {
+			platform.loadPlatform(filename);
+			checkpoint();
+		} finally {
+			changes.unlock();
+		}
+	}
+
+		// End Management-related methods ****************************************
+
+
+		// Journal-related methods ****************************************
+
+	//name of the snapshot saved by a checkpoint, without the .ser savePlatform adds
+	private String snapshotName(int generation) {
+		return filename + "-" + generation;
+	}
+
+	//refuse a change before it is made if the journal can no longer record it. the lock is held
+	private void checkJournal() {
+		try {
+			journal.checkAppendable();
+		} catch (IOException ioE) {
+			throw new UncheckedIOException("Change could not be recorded in the journal!", ioE);
+		}
+	}
+
+	//append a record of a change, made to the platform with the lock held. the fields are
+	//Strings, which may be null, and Integers
+	private long record(byte kind, Object... fields) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(kind);
+			for (Object field : fields) {
+				if (field instanceof Integer) {
+					out.writeInt((Integer) field);
+				} else if (field == null) {
+					out.writeInt(-1);
+				} else {
+					byte[] utf8 = ((String) field).getBytes(StandardCharsets.UTF_8);
+					out.writeInt(utf8.length);
+					out.write(utf8);
+				}
+			}
+			return journal.append(bytes.toByteArray());
+		} catch (IOException ioE) {
+			throw new UncheckedIOException("Change could not be recorded in the journal!", ioE);
+		}
+	}
+
+	private void awaitDurable(long sequence) {
+		try {
+			journal.awaitDurable(sequence);
+		} catch (IOException ioE) {
+			throw new UncheckedIOException("Change could not be synced to the journal!", ioE);
+		}
+	}
+
+	//make the change a record describes, while the journal is replayed
+	private void apply(byte[] contents) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(contents));
+		byte kind = in.readByte();
+		try {
+			switch (kind) {
+				case CREATE_ACCOUNT:
+					platform.createAccount(readString(in));
+					break;
+				case CREATE_ACCOUNT_DESCRIBED:
+					platform.createAccount(readString(in), readString(in));
+					break;
+				case REMOVE_ACCOUNT_ID:
+					platform.removeAccount(in.readInt());
+					break;
+				case REMOVE_ACCOUNT_HANDLE:
+					platform.removeAccount(readString(in));
+					break;
+				case CHANGE_ACCOUNT_HANDLE:
+					platform.changeAccountHandle(readString(in), readString(in));
+					break;
+				case UPDATE_ACCOUNT_DESCRIPTION:
+					platform.updateAccountDescription(readString(in), readString(in));
+					break;
+				case CREATE_POST:
+					platform.createPost(readString(in), readString(in));
+					break;
+				case ENDORSE_POST:
+					platform.endorsePost(readString(in), in.readInt());
+					break;
+				case COMMENT_POST:
+					platform.commentPost(readString(in), in.readInt(), readString(in));
+					break;
+				case DELETE_POST:
+					platform.deletePost(in.readInt());
+					break;
+				case ERASE_PLATFORM:
+					platform.erasePlatform();
+					break;
+				default:
+					throw new IOException("Unknown journal record kind " + kind + "!");
+			}
+		} catch (IOException ioE) {
+			throw ioE;
+		} catch (Exception e) { //only changes that succeeded are recorded, so they succeed again
+			throw new IOException("Journal record could not be replayed!", e);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] utf8 = new byte[length];
+		in.readFully(utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+		// End Journal-related methods ****************************************
+
+}
@@ -0,0 +1,247 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//read-only view of a snapshot file mapped into memory, answering showIndividualPost and
+//showAccount from the index that SnapshotWriter puts after the blocks. opening one reads only
+//the header and footer, so it takes the same time whatever the size of the snapshot, and the
+//records are read from the file as they are asked for
+//
+//the file is mapped in regions of at most 1 GB, as one mapping cannot go past 2 GB. reads use
+//absolute positions only, so any number of threads can read at once
+public class MappedSnapshot {
+
+    public static final int REGION_SIZE = 1 << 30;
+
+    //variables
+    public FileChannel channel;
+    public MappedByteBuffer[] regions;
+    public int accountCounter;
+    public int postCounter;
+    public long snapshotId;
+    //where each table of the index starts, and its size
+    public long postTable;
+    public long accountTable;
+    public long handleTable;
+    public int postSlots;
+    public int accountCount;
+    public int handleSlots;
+    //number of live posts of each kind
+    public int originalPostCount;
+    public int commentPostCount;
+    public int endorsementPostCount;
+
+    //map a snapshot file, which must have been written with an index
+    public MappedSnapshot(String path) throws IOException{
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < SnapshotWriter.FOOTER_SIZE + SnapshotWriter.MAGIC.length) {
+                throw new IOException("Not a platform snapshot!");
+            }
+            regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) / REGION_SIZE)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+            }
+
+            //header
+            Cursor at = new Cursor(0);
+            for (int i = 0; i < SnapshotWriter.MAGIC.length; i++) {
+                if (byteAt(at.position++) != SnapshotWriter.MAGIC[i]) {
+                    throw new IOException("Not a platform snapshot!");
+                }
+            }
+            //version 1 has the same tables, but no manifest of its blocks and so a smaller footer,
+            //and versions before 3 have no snapshot ids
+            int version = varint(at);
+            if (version < 1 || version > SnapshotWriter.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + "!");
+            }
+            accountCounter = varint(at);
+            postCounter = varint(at);
+            if (version >= 3) {
+                snapshotId = longAt(at.position);
+                if (longAt(at.position + 8) != 0) {
+                    throw new IOException("Snapshot is a delta, and cannot be mapped without the snapshot it follows!");
+                }
+            }
+
+            //footer
+            long footer = size - (version == 1 ? SnapshotWriter.FOOTER_SIZE - 4 : SnapshotWriter.FOOTER_SIZE);
+            for (int i = 0; i < SnapshotWriter.INDEX_MAGIC.length; i++) {
+                if (byteAt(size - SnapshotWriter.INDEX_MAGIC.length + i) != SnapshotWriter.INDEX_MAGIC[i]) {
+                    throw new IOException("Snapshot has no index to map!");
+                }
+            }
+            postTable = longAt(footer);
+            postSlots = intAt(footer + 8);
+            accountCount = intAt(footer + 12);
+            handleSlots = intAt(footer + 16);
+            originalPostCount = intAt(footer + 20);
+            commentPostCount = intAt(footer + 24);
+            endorsementPostCount = intAt(footer + 28);
+            if (handleSlots == 0) {
+                throw new IOException("Snapshot is compressed, so it has no index to map!");
+            }
+            accountTable = postTable + (long) postSlots * SnapshotWriter.POST_ENTRY_SIZE;
+            handleTable = accountTable + (long) accountCount * SnapshotWriter.ACCOUNT_ENTRY_SIZE;
+            long blocks = version == 1 ? 0 : intAt(footer + 32);
+            if (handleTable + (long) handleSlots * 4 + blocks * SnapshotWriter.BLOCK_ENTRY_SIZE != footer || Integer.bitCount(handleSlots) != 1) {
+                throw new IOException("Corrupt snapshot index!");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //the formatted post with an id, as SocialMedia shows it
+    public String showIndividualPost(int id) throws PostIDNotRecognisedException{
+        long offset = id <= 0 || id >= postSlots ? 0 : longAt(postTable + (long) id * SnapshotWriter.POST_ENTRY_SIZE);
+        if (offset == 0) {
+            throw new PostIDNotRecognisedException("Post ID not recognized");
+        }
+        Cursor at = new Cursor(offset);
+        byte kind = byteAt(at.position++);
+        int author = varint(at);
+        varint(at);
+        String message = string(at);
+        long entry = postTable + (long) id * SnapshotWriter.POST_ENTRY_SIZE;
+        return SocialMedia.formatPost(id, kind, handleOf(author), intAt(entry + 12), intAt(entry + 8), message);
+    }
+
+    //the formatted account with a handle, as SocialMedia shows it
+    public String showAccount(String handle) throws HandleNotRecognisedException{
+        byte[] wanted = handle.getBytes(StandardCharsets.UTF_8);
+        int mask = handleSlots - 1;
+        for (int slot = SnapshotWriter.slotOf(handle, mask); ; slot = (slot + 1) & mask) {
+            int position = intAt(handleTable + (long) slot * 4) - 1;
+            if (position < 0) {
+                throw new HandleNotRecognisedException("No account matched this handle!");
+            }
+            long entry = accountTable + (long) position * SnapshotWriter.ACCOUNT_ENTRY_SIZE;
+            Cursor at = new Cursor(longAt(entry + 4));
+            if (stringEquals(at, wanted)) {
+                String description = string(at);
+                int postCount = SnapshotReader.unzigzag(varint(at));
+                int endorsementCount = SnapshotReader.unzigzag(varint(at));
+                return SocialMedia.formatAccount(intAt(entry), handle, description, postCount, endorsementCount);
+            }
+        }
+    }
+
+    //handle of the account with an id, or "" if it has none, found by binary search of the
+    //account table
+    public String handleOf(int id){
+        int low = 0;
+        int high = accountCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long entry = accountTable + (long) middle * SnapshotWriter.ACCOUNT_ENTRY_SIZE;
+            int middleId = intAt(entry);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return string(new Cursor(longAt(entry + 4)));
+            }
+        }
+        return "";
+    }
+
+    //decode every record of the snapshot, its blocks in parallel
+    public PlatformImage read() throws IOException{
+        return SnapshotReader.readParallel(channel, java.util.concurrent.ForkJoinPool.commonPool());
+    }
+
+    public void close() throws IOException{
+        channel.close();
+    }
+
+    //position of the next value to decode, so reads keep no state of their own
+    public static class Cursor {
+        public long position;
+
+        public Cursor(long position){
+            this.position = position;
+        }
+    }
+
+    //reading at absolute positions, across regions where a value straddles two
+    public byte byteAt(long position){
+        return regions[(int) (position / REGION_SIZE)].get((int) (position % REGION_SIZE));
+    }
+
+    public int intAt(long position){
+        MappedByteBuffer region = regions[(int) (position / REGION_SIZE)];
+        int index = (int) (position % REGION_SIZE);
+        if (index + 4 <= region.limit()) {
+            return region.getInt(index);
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (byteAt(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    public long longAt(long position){
+        return ((long) intAt(position) << 32) | (intAt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    public int varint(Cursor at){
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = byteAt(at.position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    public String string(Cursor at){
+        int length = varint(at) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = bytes(at.position, length);
+        at.position += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //whether the string at the cursor is the given bytes, moving past it either way
+    private boolean stringEquals(Cursor at, byte[] wanted){
+        int length = varint(at) - 1;
+        if (length < 0) {
+            return false;
+        }
+        long start = at.position;
+        at.position += length;
+        return length == wanted.length && Arrays.equals(bytes(start, length), wanted);
+    }
+
+    private byte[] bytes(long position, int length){
+        byte[] bytes = new byte[length];
+        ByteBuffer region = regions[(int) (position / REGION_SIZE)];
+        int index = (int) (position % REGION_SIZE);
+        if (index + length <= region.limit()) {
+            region.get(index, bytes);
+        } else {
+            for (int i = 0; i < length; i++) {
+                bytes[i] = byteAt(position + i);
+            }
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,58 @@
+package socialmedia;
+
+import java.util.Arrays;
+
+//post store that keeps each post as a Post, Comment or Endorsement object in a table by id.
+//removed posts are replaced by the shared empty post of their kind
+public class ObjectPostStore implements PostStore{
+
+    //variables
+    public Post[] posts = new Post[16];
+
+    //create the object for the kind of post, doubling the table when it is full
+    public void add(int id, byte kind, int accountIdentifier, int parent, String message){
+        if (id >= posts.length) {
+            Post[] grown = new Post[Math.max(id + 1, posts.length * 2)];
+            System.arraycopy(posts, 0, grown, 0, posts.length);
+            posts = grown;
+        }
+        if (kind == PostIndex.COMMENT) {
+            posts[id] = new Comment(id, accountIdentifier, parent, message);
+        } else if (kind == PostIndex.ENDORSEMENT) {
+            posts[id] = new Endorsement(id, accountIdentifier, message, parent);
+        } else {
+            posts[id] = new Post(id, accountIdentifier, message);
+        }
+    }
+
+    public void remove(int id){
+        if (posts[id] instanceof Comment) {
+            posts[id] = Comment.REMOVED;
+        } else if (posts[id] instanceof Endorsement) {
+            posts[id] = Endorsement.REMOVED;
+        } else {
+            posts[id] = Post.REMOVED;
+        }
+    }
+
+    //getter methods
+    public int accountOf(int id){
+        return posts[id].getAccountIdentifier();
+    }
+
+    public String messageOf(int id){
+        return posts[id].getMessage();
+    }
+
+    public void clear(){
+        posts = new Post[16];
+    }
+
+    //posts are never changed once made, so copying the table copies the store
+    public PostStore copy(int length){
+        ObjectPostStore copy = new ObjectPostStore();
+        copy.posts = Arrays.copyOf(posts, Math.min(length, posts.length));
+        return copy;
+    }
+
+}
@@ -0,0 +1,149 @@
+package socialmedia;
+
+//copy of everything a platform holds, as columns of plain values: its accounts with their
+//counts, its live posts in id order, and the id counters. it is what snapshots are written
+//from and read into, so a platform is only changed once a snapshot has been read completely
+//
+//an image can also be a delta, holding only the accounts and posts changed since the snapshot
+//it follows, and the ids of those removed since
+public class PlatformImage {
+
+    //highest account and post ids handed out, which may be above any live one
+    public int accountCounter;
+    public int postCounter;
+    //id of the snapshot this image is written to or read from, 0 if it has none, and for a
+    //delta the id of the snapshot it follows, 0 for a full image
+    public long snapshotId;
+    public long baseId;
+    //variables, one entry per account
+    public int accountCount;
+    public int[] accountIds = new int[16];
+    public String[] handles = new String[16];
+    public String[] descriptions = new String[16];
+    public int[] postCounts = new int[16];
+    public int[] endorsementCounts = new int[16];
+    //variables, one entry per post in id order. parent is 0 for original posts
+    public int postCount;
+    public int[] postIds = new int[16];
+    public byte[] kinds = new byte[16];
+    public int[] authors = new int[16];
+    public int[] parents = new int[16];
+    public String[] messages = new String[16];
+    //variables of a delta, the ids of accounts and posts removed since its base, in id order
+    public int removedAccountCount;
+    public int[] removedAccountIds = new int[0];
+    public int removedPostCount;
+    public int[] removedPostIds = new int[0];
+
+    //create an empty image
+    public PlatformImage(){
+    }
+
+    //create an empty image with room for the given numbers of accounts and posts
+    public PlatformImage(int accounts, int posts){
+        reserveAccounts(accounts);
+        reservePosts(posts);
+    }
+
+    //add an account to the end of the account columns, doubling them when they are full
+    public void addAccount(int id, String handle, String description, int postCount, int endorsementCount){
+        if (accountCount == accountIds.length) {
+            reserveAccounts(accountCount * 2);
+        }
+        setAccount(accountCount++, id, handle, description, postCount, endorsementCount);
+    }
+
+    //add a post to the end of the post columns, after every post with a lower id
+    public void addPost(int id, byte kind, int author, int parent, String message){
+        if (postCount == postIds.length) {
+            reservePosts(postCount * 2);
+        }
+        setPost(postCount++, id, kind, author, parent, message);
+    }
+
+    //add the id of a removed account or post to the end of a delta's removed ids
+    public void addRemovedAccount(int id){
+        if (removedAccountCount == removedAccountIds.length) {
+            removedAccountIds = grow(removedAccountIds, Math.max(16, removedAccountCount * 2));
+        }
+        removedAccountIds[removedAccountCount++] = id;
+    }
+
+    public void addRemovedPost(int id){
+        if (removedPostCount == removedPostIds.length) {
+            removedPostIds = grow(removedPostIds, Math.max(16, removedPostCount * 2));
+        }
+        removedPostIds[removedPostCount++] = id;
+    }
+
+    //whether the image holds only the changes since another snapshot
+    public boolean isDelta(){
+        return baseId != 0;
+    }
+
+    //fill in the account at a position the columns already have room for, leaving the count as
+    //it is. different positions can be set from different threads
+    public void setAccount(int index, int id, String handle, String description, int postCount, int endorsementCount){
+        accountIds[index] = id;
+        handles[index] = handle;
+        descriptions[index] = description;
+        postCounts[index] = postCount;
+        endorsementCounts[index] = endorsementCount;
+    }
+
+    //fill in the post at a position the columns already have room for, leaving the count as it is
+    public void setPost(int index, int id, byte kind, int author, int parent, String message){
+        postIds[index] = id;
+        kinds[index] = kind;
+        authors[index] = author;
+        parents[index] = parent;
+        messages[index] = message;
+    }
+
+    //make the account columns hold at least length accounts
+    public void reserveAccounts(int length){
+        if (length > accountIds.length) {
+            accountIds = grow(accountIds, length);
+            handles = grow(handles, length);
+            descriptions = grow(descriptions, length);
+            postCounts = grow(postCounts, length);
+            endorsementCounts = grow(endorsementCounts, length);
+        }
+    }
+
+    //make the removed id columns hold at least the given numbers of ids
+    public void reserveRemoved(int accounts, int posts){
+        if (accounts > removedAccountIds.length) {
+            removedAccountIds = grow(removedAccountIds, accounts);
+        }
+        if (posts > removedPostIds.length) {
+            removedPostIds = grow(removedPostIds, posts);
+        }
+    }
+
+    //make the post columns hold at least length posts
+    public void reservePosts(int length){
+        if (length > postIds.length) {
+            postIds = grow(postIds, length);
+            byte[] grownKinds = new byte[length];
+            System.arraycopy(kinds, 0, grownKinds, 0, kinds.length);
+            kinds = grownKinds;
+            authors = grow(authors, length);
+            parents = grow(parents, length);
+            messages = grow(messages, length);
+        }
+    }
+
+    private static int[] grow(int[] column, int length){
+        int[] grown = new int[length];
+        System.arraycopy(column, 0, grown, 0, column.length);
+        return grown;
+    }
+
+    private static String[] grow(String[] column, int length){
+        String[] grown = new String[length];
+        System.arraycopy(column, 0, grown, 0, column.length);
+        return grown;
+    }
+
+}
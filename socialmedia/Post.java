@@ -1,36 +1,35 @@
 package socialmedia;
 
-//extend account to implement serializable
-public class Post extends Account{
+import java.io.Serializable;
+
+//implement serializable to enable load and saving of platform.
+//a post holds only its own id, the id of the account that made it, and its message;
+//its endorsement and comment counts are kept by the post index
+public class Post implements Serializable{
+
+    //the id computed for the class before its fields were slimmed down, so files saved by
+    //earlier versions still load
+    private static final long serialVersionUID = 7218502327118300762L;
+
+    //message shown in place of removed content
+    public static final String REMOVED_MESSAGE = "The original content was removed from the system and is no longer available.";
+    //shared placeholder for every removed post
+    public static final Post REMOVED = new Post(-1, -1, REMOVED_MESSAGE);
 
     //variables
     public int numericalIdentifier;
     public String message;
-    public int numberOfComments;
-    public int numberOfEndorsements;
-    public String accountHandle;
+    //the account is referenced by id only, its handle is looked up when the post is shown
     public int accountIdentifier;
 
-    //create post using id, account id, account handle, and message
-    public Post(int numericalIdentifier, int accountIdentifier, String accountHandle, String message){
+    //create post using id, account id, and message
+    public Post(int numericalIdentifier, int accountIdentifier, String message){
         //assign variables
         this.numericalIdentifier = numericalIdentifier;
         this.accountIdentifier = accountIdentifier;
-        this.accountHandle = accountHandle;
         this.message = message;
     }
 
-    //create empty post constructor for removed post
-    public Post(){
-        numericalIdentifier = -1;
-        message = "The original content was removed from the system and is no longer available.";
-        numberOfComments = -1;
-        numberOfEndorsements = -1;
-        accountHandle = "";
-        accountIdentifier = -1;
-        //super.decreasePostCount();
-    }
-
     //getter methods
     public int getNumericalIdentifier(){
         return numericalIdentifier;
@@ -44,13 +43,12 @@ public class Post extends Account{
         return message;
     }
 
-    public String getAccountHandle() {
-        return accountHandle;
-    }
-
-    //setter methods
-    public void setAccountHandle(String newAccountHandle) {
-        accountHandle = newAccountHandle;
+    //keep removed posts shared when a platform is loaded
+    protected Object readResolve(){
+        if (numericalIdentifier == -1) {
+            return REMOVED;
+        }
+        return this;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+package socialmedia;
+
+import java.io.Serializable;
+
+//dense table from post id to the kind of post and the post it refers to, so a post id
+//resolves with one array access. authors and messages are kept by the PostStore
+//
+//each post also keeps two child lists, its comments and its endorsements, as linked
+//lists threaded through the sibling tables. children are appended as they are created,
+//so both lists stay sorted by id, and a thread can be walked without recursion
+public class PostIndex implements Serializable{
+
+    //kinds of post, REMOVED also covers ids that were never handed out
+    public static final byte REMOVED = 0;
+    public static final byte ORIGINAL = 1;
+    public static final byte COMMENT = 2;
+    public static final byte ENDORSEMENT = 3;
+
+    //variables
+    public byte[] kinds;
+    //post a comment or endorsement refers to, 0 for original posts
+    public int[] parents;
+    //heads and tails of each post's comment and endorsement lists, 0 when empty
+    public int[] firstComments;
+    public int[] lastComments;
+    public int[] firstEndorsements;
+    public int[] lastEndorsements;
+    //neighbours of a post within its parent's list, 0 at either end
+    public int[] nextSiblings;
+    public int[] previousSiblings;
+    //number of live comments and endorsements of each post
+    public int[] commentCounts;
+    public int[] endorsementCounts;
+    //number of live posts of each kind in the whole platform
+    public int originalPostCount;
+    public int commentPostCount;
+    public int endorsementPostCount;
+
+    //create empty index
+    public PostIndex(){
+        clear();
+    }
+
+    //getter methods
+    public byte kindOf(int id){
+        if (id <= 0 || id >= kinds.length) {
+            return REMOVED;
+        }
+        return kinds[id];
+    }
+
+    public int parentOf(int id){
+        return parents[id];
+    }
+
+    public int firstCommentOf(int id){
+        return firstComments[id];
+    }
+
+    public int firstEndorsementOf(int id){
+        return firstEndorsements[id];
+    }
+
+    public int nextSiblingOf(int id){
+        return nextSiblings[id];
+    }
+
+    public int commentCountOf(int id){
+        return commentCounts[id];
+    }
+
+    public int endorsementCountOf(int id){
+        return endorsementCounts[id];
+    }
+
+    public int getOriginalPostCount(){
+        return originalPostCount;
+    }
+
+    public int getCommentPostCount(){
+        return commentPostCount;
+    }
+
+    public int getEndorsementPostCount(){
+        return endorsementPostCount;
+    }
+
+    //record a post of the given kind, linking comments and endorsements to the end of their
+    //parent's list
+    public void add(int id, byte kind, int parent){
+        if (id >= kinds.length) {
+            grow(id);
+        }
+        kinds[id] = kind;
+        parents[id] = parent;
+        if (kind == ORIGINAL) {
+            originalPostCount++;
+        } else if (kind == COMMENT) {
+            commentPostCount++;
+            nextSiblings[id] = 0;
+            previousSiblings[id] = lastComments[parent];
+            if (lastComments[parent] == 0) {
+                firstComments[parent] = id;
+            } else {
+                nextSiblings[lastComments[parent]] = id;
+            }
+            lastComments[parent] = id;
+            commentCounts[parent]++;
+        } else if (kind == ENDORSEMENT) {
+            endorsementPostCount++;
+            nextSiblings[id] = 0;
+            previousSiblings[id] = lastEndorsements[parent];
+            if (lastEndorsements[parent] == 0) {
+                firstEndorsements[parent] = id;
+            } else {
+                nextSiblings[lastEndorsements[parent]] = id;
+            }
+            lastEndorsements[parent] = id;
+            endorsementCounts[parent]++;
+        }
+    }
+
+    //mark a post as removed so it no longer resolves, and unlink it from its parent's list.
+    //its own comments stay linked to it, so they are no longer reachable from the thread
+    public void remove(int id){
+        int parent = parents[id];
+        int next = nextSiblings[id];
+        int previous = previousSiblings[id];
+        if (kinds[id] == ORIGINAL) {
+            originalPostCount--;
+        } else if (kinds[id] == COMMENT) {
+            commentPostCount--;
+            if (previous == 0) {
+                firstComments[parent] = next;
+            } else {
+                nextSiblings[previous] = next;
+            }
+            if (next == 0) {
+                lastComments[parent] = previous;
+            } else {
+                previousSiblings[next] = previous;
+            }
+            commentCounts[parent]--;
+        } else if (kinds[id] == ENDORSEMENT) {
+            endorsementPostCount--;
+            if (previous == 0) {
+                firstEndorsements[parent] = next;
+            } else {
+                nextSiblings[previous] = next;
+            }
+            if (next == 0) {
+                lastEndorsements[parent] = previous;
+            } else {
+                previousSiblings[next] = previous;
+            }
+            endorsementCounts[parent]--;
+        }
+        kinds[id] = REMOVED;
+    }
+
+    //forget every post
+    public void clear(){
+        kinds = new byte[16];
+        parents = new int[16];
+        firstComments = new int[16];
+        lastComments = new int[16];
+        firstEndorsements = new int[16];
+        lastEndorsements = new int[16];
+        nextSiblings = new int[16];
+        previousSiblings = new int[16];
+        commentCounts = new int[16];
+        endorsementCounts = new int[16];
+        originalPostCount = 0;
+        commentPostCount = 0;
+        endorsementPostCount = 0;
+    }
+
+    //grow the tables to fit id, doubling so adds stay amortised constant time
+    private void grow(int id){
+        int length = Math.max(id + 1, kinds.length * 2);
+        byte[] grownKinds = new byte[length];
+        System.arraycopy(kinds, 0, grownKinds, 0, kinds.length);
+        kinds = grownKinds;
+        parents = grow(parents, length);
+        firstComments = grow(firstComments, length);
+        lastComments = grow(lastComments, length);
+        firstEndorsements = grow(firstEndorsements, length);
+        lastEndorsements = grow(lastEndorsements, length);
+        nextSiblings = grow(nextSiblings, length);
+        previousSiblings = grow(previousSiblings, length);
+        commentCounts = grow(commentCounts, length);
+        endorsementCounts = grow(endorsementCounts, length);
+    }
+
+    private static int[] grow(int[] table, int length){
+        int[] grown = new int[length];
+        System.arraycopy(table, 0, grown, 0, table.length);
+        return grown;
+    }
+
+}
@@ -0,0 +1,44 @@
+package socialmedia;
+
+//one item of a batch of posts, endorsements or comments: the handle of the account making it,
+//the post it endorses or comments on, and its message
+public class PostRequest {
+
+    //variables
+    public String handle;
+    public int id;
+    public String message;
+
+    //create request for an original post
+    public PostRequest(String handle, String message){
+        this.handle = handle;
+        this.message = message;
+    }
+
+    //create request for an endorsement of post id
+    public PostRequest(String handle, int id){
+        this.handle = handle;
+        this.id = id;
+    }
+
+    //create request for a comment on post id
+    public PostRequest(String handle, int id, String message){
+        this.handle = handle;
+        this.id = id;
+        this.message = message;
+    }
+
+    //getter methods
+    public String getHandle(){
+        return handle;
+    }
+
+    public int getID(){
+        return id;
+    }
+
+    public String getMessage(){
+        return message;
+    }
+
+}
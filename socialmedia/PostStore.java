@@ -0,0 +1,27 @@
+package socialmedia;
+
+import java.io.Serializable;
+
+//storage for the author and message of every post, comment and endorsement, by post id.
+//the kind of each post, what it refers to and its counts are kept by the PostIndex, so a
+//store only has to answer for ids the index says are live. ids are added in increasing order
+public interface PostStore extends Serializable{
+
+    //store a new post, parent is the post commented or endorsed and 0 for original posts
+    void add(int id, byte kind, int accountIdentifier, int parent, String message);
+
+    //replace a post by an empty one
+    void remove(int id);
+
+    //getter methods, for live posts
+    int accountOf(int id);
+
+    String messageOf(int id);
+
+    //forget every post
+    void clear();
+
+    //copy of the posts with ids below length, which later changes to this store do not affect
+    PostStore copy(int length);
+
+}
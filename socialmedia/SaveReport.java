@@ -0,0 +1,99 @@
+package socialmedia;
+
+//outcome of a background save or a compaction: how long changes were held up while the platform
+//was copied, how long the whole save took, and what was written
+public class SaveReport {
+
+    //variables
+    public String filename;
+    public long pauseNanos;
+    public long durationNanos;
+    public int accounts;
+    public int posts;
+    public long bytes;
+    //bytes of records encoded, bytes stored for them once compressed, and time spent
+    //compressing summed over every thread
+    public long payloadBytes;
+    public long storedBytes;
+    public long compressNanos;
+
+    //create report for a save that has finished
+    public SaveReport(String filename, long pauseNanos, long durationNanos, int accounts, int posts, long bytes){
+        this(filename, pauseNanos, durationNanos, accounts, posts, bytes, 0, 0, 0);
+    }
+
+    //create report for a save that has finished, with how well its blocks compressed
+    public SaveReport(String filename, long pauseNanos, long durationNanos, int accounts, int posts, long bytes, long payloadBytes, long storedBytes, long compressNanos){
+        this.filename = filename;
+        this.pauseNanos = pauseNanos;
+        this.durationNanos = durationNanos;
+        this.accounts = accounts;
+        this.posts = posts;
+        this.bytes = bytes;
+        this.payloadBytes = payloadBytes;
+        this.storedBytes = storedBytes;
+        this.compressNanos = compressNanos;
+    }
+
+    //create report for a save written by a writer
+    public SaveReport(String filename, long pauseNanos, long durationNanos, PlatformImage image, long bytes, SnapshotWriter writer){
+        this(filename, pauseNanos, durationNanos, image.accountCount, image.postCount, bytes, writer.payloadBytes, writer.storedBytes, writer.compressNanos);
+    }
+
+    //getter methods
+    public String getFilename(){
+        return filename;
+    }
+
+    public long getPauseNanos(){
+        return pauseNanos;
+    }
+
+    public long getDurationNanos(){
+        return durationNanos;
+    }
+
+    public int getAccounts(){
+        return accounts;
+    }
+
+    public int getPosts(){
+        return posts;
+    }
+
+    public long getBytes(){
+        return bytes;
+    }
+
+    public long getPayloadBytes(){
+        return payloadBytes;
+    }
+
+    public long getStoredBytes(){
+        return storedBytes;
+    }
+
+    public long getCompressNanos(){
+        return compressNanos;
+    }
+
+    //encoded bytes of records per byte stored, 1 if the blocks were not compressed
+    public double getCompressionRatio(){
+        return storedBytes == 0 ? 1 : (double) payloadBytes / storedBytes;
+    }
+
+    //megabytes of records compressed per second of one thread's time, 0 if none were
+    public double getCompressionThroughput(){
+        return compressNanos == 0 ? 0 : payloadBytes * 1000.0 / compressNanos;
+    }
+
+    public String toString(){
+        String report = filename + ": " + accounts + " accounts, " + posts + " posts, " + bytes + " bytes in "
+                + durationNanos / 1000000 + " ms, changes paused for " + pauseNanos / 1000 + " us";
+        if (compressNanos > 0) {
+            report += String.format(", blocks compressed %.2f:1 at %.0f MB/s per thread", getCompressionRatio(), getCompressionThroughput());
+        }
+        return report;
+    }
+
+}
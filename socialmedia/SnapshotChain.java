@@ -0,0 +1,94 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+//a full snapshot followed by deltas, each holding the accounts and posts changed since the one
+//before it. applying the deltas in order gives the platform as it was when the last was written
+public class SnapshotChain {
+
+    //read a full snapshot and apply each delta file after it, in order
+    public static PlatformImage read(String base, List<String> deltas) throws IOException, ClassNotFoundException{
+        PlatformImage image = SnapshotReader.readFile(base);
+        for (String delta : deltas) {
+            image = apply(image, SnapshotReader.readDeltaFile(delta));
+        }
+        return image;
+    }
+
+    //the image a delta makes of the image it follows. both hold their records in id order, so
+    //they are merged in one pass: records in the delta replace those with the same id, and
+    //removed ids drop them
+    public static PlatformImage apply(PlatformImage base, PlatformImage delta) throws IOException{
+        if (delta.baseId != base.snapshotId) {
+            throw new IOException("Snapshot delta does not follow the snapshot before it in the chain!");
+        }
+        PlatformImage image = new PlatformImage(base.accountCount + delta.accountCount, base.postCount + delta.postCount);
+        image.accountCounter = Math.max(base.accountCounter, delta.accountCounter);
+        image.postCounter = Math.max(base.postCounter, delta.postCounter);
+        image.snapshotId = delta.snapshotId;
+        image.baseId = base.baseId;
+
+        int changed = 0;
+        int removed = 0;
+        for (int i = 0; i < base.accountCount; i++) {
+            int id = base.accountIds[i];
+            while (changed < delta.accountCount && delta.accountIds[changed] < id) {
+                copyAccount(delta, changed++, image);
+            }
+            while (removed < delta.removedAccountCount && delta.removedAccountIds[removed] < id) {
+                removed++;
+            }
+            if (changed < delta.accountCount && delta.accountIds[changed] == id) {
+                copyAccount(delta, changed++, image);
+            } else if (removed == delta.removedAccountCount || delta.removedAccountIds[removed] != id) {
+                copyAccount(base, i, image);
+            }
+        }
+        while (changed < delta.accountCount) {
+            copyAccount(delta, changed++, image);
+        }
+
+        changed = 0;
+        removed = 0;
+        for (int i = 0; i < base.postCount; i++) {
+            int id = base.postIds[i];
+            while (changed < delta.postCount && delta.postIds[changed] < id) {
+                copyPost(delta, changed++, image);
+            }
+            while (removed < delta.removedPostCount && delta.removedPostIds[removed] < id) {
+                removed++;
+            }
+            if (changed < delta.postCount && delta.postIds[changed] == id) {
+                copyPost(delta, changed++, image);
+            } else if (removed == delta.removedPostCount || delta.removedPostIds[removed] != id) {
+                copyPost(base, i, image);
+            }
+        }
+        while (changed < delta.postCount) {
+            copyPost(delta, changed++, image);
+        }
+        return image;
+    }
+
+    //merge a full snapshot and its deltas into one full snapshot file, with its blocks compressed
+    //at a Deflater level, 0 for none. it keeps the id of the last delta, so deltas written after
+    //that one can follow the merged file instead
+    public static SaveReport compact(String base, List<String> deltas, String target, int level) throws IOException, ClassNotFoundException{
+        long start = System.nanoTime();
+        PlatformImage image = read(base, deltas);
+        SnapshotWriter writer = SnapshotWriter.writeFile(target, image, level);
+        return new SaveReport(target, 0, System.nanoTime() - start, image, Files.size(Paths.get(target)), writer);
+    }
+
+    private static void copyAccount(PlatformImage from, int i, PlatformImage to){
+        to.addAccount(from.accountIds[i], from.handles[i], from.descriptions[i], from.postCounts[i], from.endorsementCounts[i]);
+    }
+
+    private static void copyPost(PlatformImage from, int i, PlatformImage to){
+        to.addPost(from.postIds[i], from.kinds[i], from.authors[i], from.parents[i], from.messages[i]);
+    }
+
+}
@@ -0,0 +1,486 @@
+package socialmedia;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+//reads a PlatformImage from a channel in the binary snapshot format written by SnapshotWriter.
+//the channel is read through one buffer, and each block's payload is decoded from memory
+//
+//readFile instead reads the manifest at the end of the file and decodes every block in
+//parallel, each straight into its place in the image, as the manifest says how many records
+//come before each block
+public class SnapshotReader {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+    //legacy files hold only lists of accounts and posts, so nothing else is deserialized from them.
+    //an ArrayList checks the Object[] it reads into, which the filter matches by its element type
+    static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter("maxdepth=8;java.util.ArrayList;java.lang.Object;socialmedia.*;!*");
+
+    //variables
+    public ReadableByteChannel channel;
+    public ByteBuffer buffer;
+    public byte[] payload = new byte[0];
+    public int position;
+    public int previousId;
+    //version of the snapshot, set by readHeader
+    public int version;
+
+    //create reader for a channel, which it does not close. readers of single blocks have none
+    public SnapshotReader(ReadableByteChannel channel){
+        this.channel = channel;
+        if (channel != null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+        }
+    }
+
+    //read the whole image, up to and including the end block
+    public PlatformImage read() throws IOException{
+        PlatformImage image = readHeader();
+        while (true) {
+            byte kind = readByte();
+            int records = readVarint();
+            int length = readVarint();
+            if (kind == SnapshotWriter.END) {
+                return image;
+            }
+            readPayload(kind, length);
+            decodeBlock(image, (byte) (kind & ~SnapshotWriter.COMPRESSED), records);
+            if (position != payloadLength) {
+                throw new IOException("Corrupt snapshot block!");
+            }
+        }
+    }
+
+    //read the header into a new image. version 1 has the same blocks, only a smaller index
+    //after them, and versions before 3 have no snapshot ids
+    public PlatformImage readHeader() throws IOException{
+        for (int i = 0; i < SnapshotWriter.MAGIC.length; i++) {
+            if (readByte() != SnapshotWriter.MAGIC[i]) {
+                throw new IOException("Not a platform snapshot!");
+            }
+        }
+        version = readVarint();
+        if (version < 1 || version > SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + "!");
+        }
+        PlatformImage image = new PlatformImage();
+        image.accountCounter = readVarint();
+        image.postCounter = readVarint();
+        if (version >= 3) {
+            image.snapshotId = readLong();
+            image.baseId = readLong();
+        }
+        return image;
+    }
+
+    //length of the payload read into memory, set by readPayload
+    public int payloadLength;
+
+    //read a block's payload into memory, inflating it if it is compressed
+    protected void readPayload(byte kind, int length) throws IOException{
+        if ((kind & SnapshotWriter.COMPRESSED) != 0) {
+            byte[] stored = new byte[length];
+            readFully(stored, length);
+            inflate(stored, length);
+            return;
+        }
+        if (length > payload.length) {
+            payload = new byte[length];
+        }
+        readFully(payload, length);
+        payloadLength = length;
+    }
+
+    //inflate a compressed payload into memory: the varint of its encoded length, then the
+    //deflated bytes
+    private void inflate(byte[] stored, int length) throws IOException{
+        payload = stored;
+        position = 0;
+        int encodedLength;
+        try {
+            encodedLength = nextVarint();
+        } catch (ArrayIndexOutOfBoundsException aioobE) {
+            throw new IOException("Corrupt snapshot block!");
+        }
+        byte[] encoded = new byte[encodedLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, position, length - position);
+            int inflated = 0;
+            while (!inflater.finished()) {
+                int read = inflater.inflate(encoded, inflated, encodedLength - inflated);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflated == encodedLength)) {
+                    break;
+                }
+                inflated += read;
+            }
+            if (inflated != encodedLength || !inflater.finished()) {
+                throw new IOException("Corrupt snapshot block!");
+            }
+        } catch (DataFormatException dfE) {
+            throw new IOException("Corrupt snapshot block!");
+        } finally {
+            inflater.end();
+        }
+        payload = encoded;
+        payloadLength = encodedLength;
+    }
+
+    //decode the records of a block from the payload in memory, adding them after those of the
+    //image
+    public void decodeBlock(PlatformImage image, byte kind, int records) throws IOException{
+        if (kind == SnapshotWriter.ACCOUNTS) {
+            if (image.accountCount + records > image.accountIds.length) {
+                image.reserveAccounts(Math.max(image.accountCount + records, image.accountIds.length * 2));
+            }
+            decodeBlock(image, kind, records, image.accountCount);
+            image.accountCount += records;
+        } else if (kind == SnapshotWriter.POSTS) {
+            if (image.postCount + records > image.postIds.length) {
+                image.reservePosts(Math.max(image.postCount + records, image.postIds.length * 2));
+            }
+            decodeBlock(image, kind, records, image.postCount);
+            image.postCount += records;
+        } else if (kind == SnapshotWriter.REMOVED_ACCOUNTS) {
+            image.reserveRemoved(image.removedAccountCount + records, 0);
+            decodeBlock(image, kind, records, image.removedAccountCount);
+            image.removedAccountCount += records;
+        } else {
+            image.reserveRemoved(0, image.removedPostCount + records);
+            decodeBlock(image, kind, records, image.removedPostCount);
+            image.removedPostCount += records;
+        }
+    }
+
+    //decode the records of a block from the payload in memory into the image's columns from
+    //position first, which must have room for them
+    public void decodeBlock(PlatformImage image, byte kind, int records, int first) throws IOException{
+        position = 0;
+        previousId = 0;
+        try {
+            if (kind == SnapshotWriter.ACCOUNTS) {
+                for (int i = 0; i < records; i++) {
+                    int id = nextId();
+                    String handle = nextString();
+                    String description = nextString();
+                    int postCount = unzigzag(nextVarint());
+                    int endorsementCount = unzigzag(nextVarint());
+                    image.setAccount(first + i, id, handle, description, postCount, endorsementCount);
+                }
+            } else if (kind == SnapshotWriter.POSTS) {
+                for (int i = 0; i < records; i++) {
+                    int id = nextId();
+                    byte postKind = payload[position++];
+                    int author = nextVarint();
+                    int parent = nextVarint();
+                    image.setPost(first + i, id, postKind, author, parent, nextString());
+                }
+            } else if (kind == SnapshotWriter.REMOVED_ACCOUNTS) {
+                for (int i = 0; i < records; i++) {
+                    image.removedAccountIds[first + i] = nextId();
+                }
+            } else if (kind == SnapshotWriter.REMOVED_POSTS) {
+                for (int i = 0; i < records; i++) {
+                    image.removedPostIds[first + i] = nextId();
+                }
+            } else {
+                throw new IOException("Unknown snapshot block kind " + kind + "!");
+            }
+        } catch (ArrayIndexOutOfBoundsException aioobE) {
+            throw new IOException("Corrupt snapshot block!");
+        }
+    }
+
+    //decoding from the payload in memory
+    private int nextId(){
+        previousId += nextVarint();
+        return previousId;
+    }
+
+    private int nextVarint(){
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = payload[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private String nextString(){
+        int length = nextVarint() - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(payload, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public static int unzigzag(int value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //reading from the channel, refilling the buffer as needed
+    public byte readByte() throws IOException{
+        if (!buffer.hasRemaining()) {
+            fill();
+        }
+        return buffer.get();
+    }
+
+    public long readLong() throws IOException{
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (readByte() & 0xFF);
+        }
+        return value;
+    }
+
+    public int readVarint() throws IOException{
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    public void readFully(byte[] bytes, int length) throws IOException{
+        int read = 0;
+        while (read < length) {
+            if (!buffer.hasRemaining()) {
+                fill();
+            }
+            int chunk = Math.min(length - read, buffer.remaining());
+            buffer.get(bytes, read, chunk);
+            read += chunk;
+        }
+    }
+
+    private void fill() throws IOException{
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        if (read < 0) {
+            throw new EOFException("Snapshot ends early!");
+        }
+    }
+
+    //read a platform file, either a binary snapshot or the ObjectOutputStream lists of accounts,
+    //posts, comments and endorsements that older versions saved. deltas are refused, as they
+    //only make sense applied to the snapshot they follow
+    public static PlatformImage readFile(String path) throws IOException, ClassNotFoundException{
+        PlatformImage image = readAnyFile(path);
+        if (image.isDelta()) {
+            throw new IOException("Snapshot is a delta, and can only be read after the snapshot it follows!");
+        }
+        return image;
+    }
+
+    //id of the snapshot in a file, read from its header alone, 0 if it was written before
+    //snapshots had ids
+    public static long readSnapshotId(String path) throws IOException{
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            SnapshotReader header = new SnapshotReader(channel);
+            header.buffer = ByteBuffer.allocate(64);
+            header.buffer.flip();
+            return header.readHeader().snapshotId;
+        } finally {
+            channel.close();
+        }
+    }
+
+    //read a delta snapshot file, written by SocialMedia.savePlatformDelta
+    public static PlatformImage readDeltaFile(String path) throws IOException, ClassNotFoundException{
+        PlatformImage image = readAnyFile(path);
+        if (!image.isDelta()) {
+            throw new IOException("Snapshot is not a delta!");
+        }
+        return image;
+    }
+
+    private static PlatformImage readAnyFile(String path) throws IOException, ClassNotFoundException{
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            ByteBuffer magic = ByteBuffer.allocate(SnapshotWriter.MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+            }
+            channel.position(0);
+            if (magic.hasRemaining() || !java.util.Arrays.equals(magic.array(), SnapshotWriter.MAGIC)) {
+                return readLegacyFile(path);
+            }
+            return readParallel(channel, ForkJoinPool.commonPool());
+        } finally {
+            channel.close();
+        }
+    }
+
+    //read a snapshot by decoding its blocks in parallel on a pool, from the manifest in its index.
+    //snapshots of version 1, which have no manifest, are read in order instead
+    public static PlatformImage readParallel(FileChannel channel, ForkJoinPool pool) throws IOException{
+        channel.position(0);
+        SnapshotReader header = new SnapshotReader(channel);
+        header.buffer = ByteBuffer.allocate(64);
+        header.buffer.flip();
+        PlatformImage image = header.readHeader();
+        if (header.version < 2) {
+            channel.position(0);
+            return new SnapshotReader(channel).read();
+        }
+
+        //the footer says how many blocks the manifest before it lists
+        long size = channel.size();
+        ByteBuffer footer = ByteBuffer.allocate(SnapshotWriter.FOOTER_SIZE);
+        readFully(channel, footer, size - SnapshotWriter.FOOTER_SIZE);
+        for (int i = 0; i < SnapshotWriter.INDEX_MAGIC.length; i++) {
+            if (footer.get(SnapshotWriter.FOOTER_SIZE - SnapshotWriter.INDEX_MAGIC.length + i) != SnapshotWriter.INDEX_MAGIC[i]) {
+                throw new IOException("Corrupt snapshot index!");
+            }
+        }
+        int blocks = footer.getInt(32);
+        long manifestStart = size - SnapshotWriter.FOOTER_SIZE - (long) blocks * SnapshotWriter.BLOCK_ENTRY_SIZE;
+        if (blocks < 0 || manifestStart < footer.getLong(0)) {
+            throw new IOException("Corrupt snapshot index!");
+        }
+        ByteBuffer manifest = ByteBuffer.allocate(blocks * SnapshotWriter.BLOCK_ENTRY_SIZE);
+        readFully(channel, manifest, manifestStart);
+
+        //give every block the positions its records go to, counting the records of each kind
+        //of block, then decode them all at once
+        int[] counts = new int[SnapshotWriter.REMOVED_POSTS + 1];
+        ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int b = 0; b < blocks; b++) {
+            int entry = b * SnapshotWriter.BLOCK_ENTRY_SIZE;
+            long offset = manifest.getLong(entry);
+            int length = manifest.getInt(entry + 8);
+            int records = manifest.getInt(entry + 12);
+            byte storedKind = (byte) manifest.getInt(entry + 16);
+            byte kind = (byte) (storedKind & ~SnapshotWriter.COMPRESSED);
+            if (kind <= SnapshotWriter.END || kind >= counts.length) {
+                throw new IOException("Unknown snapshot block kind " + kind + "!");
+            }
+            int first = counts[kind];
+            counts[kind] += records;
+            tasks.add(() -> {
+                SnapshotReader block = new SnapshotReader(null);
+                block.readPayloadAt(channel, storedKind, offset, length);
+                block.decodeBlock(image, kind, records, first);
+                if (block.position != block.payloadLength) {
+                    throw new IOException("Corrupt snapshot block!");
+                }
+                return null;
+            });
+        }
+        image.reserveAccounts(counts[SnapshotWriter.ACCOUNTS]);
+        image.reservePosts(counts[SnapshotWriter.POSTS]);
+        image.reserveRemoved(counts[SnapshotWriter.REMOVED_ACCOUNTS], counts[SnapshotWriter.REMOVED_POSTS]);
+        for (Future<Void> decoded : pool.invokeAll(tasks)) {
+            try {
+                decoded.get();
+            } catch (ExecutionException eE) {
+                throw eE.getCause() instanceof IOException ? (IOException) eE.getCause() : new IOException("Snapshot block could not be decoded!", eE.getCause());
+            } catch (InterruptedException iE) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Snapshot read was interrupted!");
+            }
+        }
+        image.accountCount = counts[SnapshotWriter.ACCOUNTS];
+        image.postCount = counts[SnapshotWriter.POSTS];
+        image.removedAccountCount = counts[SnapshotWriter.REMOVED_ACCOUNTS];
+        image.removedPostCount = counts[SnapshotWriter.REMOVED_POSTS];
+        return image;
+    }
+
+    //read a block's payload from its offset in a file, which any number of threads can do at
+    //once, inflating it if it is compressed
+    protected void readPayloadAt(FileChannel file, byte kind, long offset, int length) throws IOException{
+        byte[] stored = new byte[length];
+        readFully(file, ByteBuffer.wrap(stored), offset);
+        if ((kind & SnapshotWriter.COMPRESSED) != 0) {
+            inflate(stored, length);
+        } else {
+            payload = stored;
+            payloadLength = length;
+        }
+    }
+
+    private static void readFully(FileChannel file, ByteBuffer buffer, long position) throws IOException{
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Snapshot ends early!");
+            }
+        }
+    }
+
+    private static PlatformImage readLegacyFile(String path) throws IOException, ClassNotFoundException{
+        ObjectInputStream objectInputStream = new ObjectInputStream(new java.io.BufferedInputStream(new FileInputStream(path)));
+        objectInputStream.setObjectInputFilter(LEGACY_FILTER);
+        try {
+            PlatformImage image = new PlatformImage();
+            for (Object object : (ArrayList<?>) objectInputStream.readObject()) {
+                Account account = (Account) object;
+                image.addAccount(account.getNumericalIdentifier(), account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+                image.accountCounter = Math.max(image.accountCounter, account.getNumericalIdentifier());
+            }
+            //gather the posts, comments and endorsements by id, so they are added in id order
+            ArrayList<Post> loaded = new ArrayList<Post>();
+            for (int list = 0; list < 3; list++) {
+                for (Object object : (ArrayList<?>) objectInputStream.readObject()) {
+                    Post post = (Post) object;
+                    int id = post.getNumericalIdentifier();
+                    //removed posts are kept in the lists as placeholders with id -1
+                    if (id > 0) {
+                        while (loaded.size() <= id) {
+                            loaded.add(null);
+                        }
+                        loaded.set(id, post);
+                    }
+                }
+            }
+            for (int id = 1; id < loaded.size(); id++) {
+                Post post = loaded.get(id);
+                if (post instanceof Comment) {
+                    image.addPost(id, PostIndex.COMMENT, post.getAccountIdentifier(), ((Comment) post).getLinkedID(), post.getMessage());
+                } else if (post instanceof Endorsement) {
+                    image.addPost(id, PostIndex.ENDORSEMENT, post.getAccountIdentifier(), ((Endorsement) post).getOriginalID(), post.getMessage());
+                } else if (post != null) {
+                    image.addPost(id, PostIndex.ORIGINAL, post.getAccountIdentifier(), 0, post.getMessage());
+                }
+                if (post != null) {
+                    image.postCounter = id;
+                }
+            }
+            return image;
+        } catch (ClassCastException ccE) {
+            throw new IOException("Not a platform file!");
+        } finally {
+            objectInputStream.close();
+        }
+    }
+
+}
@@ -0,0 +1,489 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
+
+//writes a PlatformImage to a channel in the binary snapshot format:
+//
+//  header   "SMSN", varint version, varint account counter, varint post counter, long snapshot
+//           id, long id of the snapshot a delta follows or 0
+//  blocks   byte kind, varint record count, varint payload length, payload
+//  end      a block of kind 0 with no records
+//  index    fixed-width tables locating every record and block
+//
+//account blocks come before post blocks, then in deltas the blocks of removed ids. an account
+//record is its id, handle, description, post count and endorsement count; a post record is its
+//id, kind, author, parent and message; a removed record is only the id.
+//ids are stored as the difference from the previous record of the block, so every block can be
+//decoded on its own. counts are zigzag varints, and strings are a varint of their UTF-8 length
+//plus one, 0 meaning null
+//
+//each block is a segment of a fixed number of accounts or posts, a range of ids, so where the
+//blocks start does not depend on the ones before. the blocks are encoded in parallel on a fork
+//join pool, a few per thread at a time, and written in order as each group is done
+//
+//with a compression level above 0 each payload is deflated on its own as it is encoded, so
+//blocks can still be inflated and decoded in parallel. a compressed block has the top bit of
+//its kind set, and its payload is a varint of the encoded length followed by the deflated
+//bytes. blocks that deflate to no fewer bytes are stored as they are. record offsets inside a
+//deflated payload cannot be read in place, so compressed snapshots get no lookup tables either
+//
+//the index follows the end block, so readers that decode everything in order stop before it.
+//deltas hold only some of the records, so their post, account and handle tables are empty,
+//as are those of compressed snapshots:
+//
+//  posts    for ids 0 to the post counter: long file offset of the record's kind byte, 0 if
+//           there is no such post, then int comment count and int endorsement count
+//  accounts in id order: int id, long file offset of the account's handle
+//  handles  open-addressed table of account positions plus one, 0 for empty slots
+//  blocks   the manifest: long file offset of each block's payload, int payload length, int
+//           record count, int kind
+//  footer   long index offset, int post slots, int accounts, int handle slots, int original,
+//           comment and endorsement post counts, int blocks, "SMIX"
+public class SnapshotWriter {
+
+    public static final byte[] MAGIC = {'S', 'M', 'S', 'N'};
+    public static final int VERSION = 3;
+    //kinds of block
+    public static final byte END = 0;
+    public static final byte ACCOUNTS = 1;
+    public static final byte POSTS = 2;
+    public static final byte REMOVED_ACCOUNTS = 3;
+    public static final byte REMOVED_POSTS = 4;
+    //flag on the kind of a block whose payload is deflated
+    public static final byte COMPRESSED = (byte) 0x80;
+    //records in each block
+    public static final int ACCOUNTS_PER_BLOCK = 2048;
+    public static final int POSTS_PER_BLOCK = 4096;
+    public static final int REMOVED_PER_BLOCK = 16384;
+    public static final byte[] INDEX_MAGIC = {'S', 'M', 'I', 'X'};
+    public static final int FOOTER_SIZE = 40;
+    public static final int POST_ENTRY_SIZE = 16;
+    public static final int ACCOUNT_ENTRY_SIZE = 12;
+    public static final int BLOCK_ENTRY_SIZE = 20;
+
+    //variables
+    public WritableByteChannel channel;
+    public ForkJoinPool pool;
+    //bytes written to the channel so far
+    public long written;
+    //file offsets of each record, filled in as their blocks are written
+    public long[] accountOffsets;
+    public long[] postOffsets;
+    //blocks written, in order, for the manifest
+    public List<Segment> segments = new ArrayList<Segment>();
+    //Deflater level the blocks are compressed with, 0 to store them as they are
+    public int level;
+    //bytes of records encoded, bytes of payload stored for them, and time spent deflating
+    //summed over every thread
+    public long payloadBytes;
+    public long storedBytes;
+    public long compressNanos;
+
+    //create writer for a channel, which it does not close, encoding on the common pool
+    public SnapshotWriter(WritableByteChannel channel){
+        this(channel, ForkJoinPool.commonPool());
+    }
+
+    //create writer for a channel, which it does not close, encoding on the given pool
+    public SnapshotWriter(WritableByteChannel channel, ForkJoinPool pool){
+        this.channel = channel;
+        this.pool = pool;
+    }
+
+    //one block: the range of an image's accounts or posts it holds, and once encoded its payload
+    //and the offset of each record within it
+    public static class Segment {
+        public byte kind;
+        public int first;
+        public int records;
+        public byte[] payload;
+        public int length;
+        public int[] recordOffsets;
+        public long fileOffset;
+        //bytes of records before compression, and time spent deflating them
+        public int encodedLength;
+        public boolean compressed;
+        public long compressNanos;
+
+        public Segment(byte kind, int first, int records){
+            this.kind = kind;
+            this.first = first;
+            this.records = records;
+        }
+    }
+
+    //write the whole image, followed by the end block and the index. an image with no snapshot
+    //id is given a new one
+    public void write(PlatformImage image) throws IOException{
+        if (image.snapshotId == 0) {
+            image.snapshotId = newSnapshotId();
+        }
+        accountOffsets = new long[image.accountCount];
+        postOffsets = new long[image.postCount];
+        ByteBuffer header = ByteBuffer.allocate(48);
+        header.put(MAGIC);
+        header.position(putVarint(header.array(), header.position(), VERSION));
+        header.position(putVarint(header.array(), header.position(), image.accountCounter));
+        header.position(putVarint(header.array(), header.position(), image.postCounter));
+        header.putLong(image.snapshotId);
+        header.putLong(image.baseId);
+        header.flip();
+        writeFully(header);
+
+        ArrayList<Segment> all = new ArrayList<Segment>();
+        for (int i = 0; i < image.accountCount; i += ACCOUNTS_PER_BLOCK) {
+            all.add(new Segment(ACCOUNTS, i, Math.min(ACCOUNTS_PER_BLOCK, image.accountCount - i)));
+        }
+        for (int i = 0; i < image.postCount; i += POSTS_PER_BLOCK) {
+            all.add(new Segment(POSTS, i, Math.min(POSTS_PER_BLOCK, image.postCount - i)));
+        }
+        for (int i = 0; i < image.removedAccountCount; i += REMOVED_PER_BLOCK) {
+            all.add(new Segment(REMOVED_ACCOUNTS, i, Math.min(REMOVED_PER_BLOCK, image.removedAccountCount - i)));
+        }
+        for (int i = 0; i < image.removedPostCount; i += REMOVED_PER_BLOCK) {
+            all.add(new Segment(REMOVED_POSTS, i, Math.min(REMOVED_PER_BLOCK, image.removedPostCount - i)));
+        }
+        //encode a few blocks per thread at a time, so only those are held in memory at once
+        int group = Math.max(1, pool.getParallelism() * 4);
+        for (int start = 0; start < all.size(); start += group) {
+            List<Segment> encoding = all.subList(start, Math.min(all.size(), start + group));
+            ArrayList<Callable<Segment>> tasks = new ArrayList<Callable<Segment>>();
+            for (Segment segment : encoding) {
+                tasks.add(() -> encode(image, segment));
+            }
+            for (Future<Segment> encoded : pool.invokeAll(tasks)) {
+                writeSegment(encodedSegment(encoded));
+            }
+        }
+        writeFully(ByteBuffer.wrap(new byte[] {END, 0, 0}));
+        writeIndex(image);
+    }
+
+    //encode a block's records into its payload. runs on the pool, touching only the segment
+    public Segment encode(PlatformImage image, Segment segment){
+        Encoder out = new Encoder(segment.records * 24 + 64);
+        segment.recordOffsets = new int[segment.records];
+        int previousId = 0;
+        for (int r = 0; r < segment.records; r++) {
+            int i = segment.first + r;
+            if (segment.kind == ACCOUNTS) {
+                out.varint(image.accountIds[i] - previousId);
+                previousId = image.accountIds[i];
+                segment.recordOffsets[r] = out.length;
+                out.string(image.handles[i]);
+                out.string(image.descriptions[i]);
+                out.varint(zigzag(image.postCounts[i]));
+                out.varint(zigzag(image.endorsementCounts[i]));
+            } else if (segment.kind == POSTS) {
+                out.varint(image.postIds[i] - previousId);
+                previousId = image.postIds[i];
+                segment.recordOffsets[r] = out.length;
+                out.ensure(1);
+                out.bytes[out.length++] = image.kinds[i];
+                out.varint(image.authors[i]);
+                out.varint(image.parents[i]);
+                out.string(image.messages[i]);
+            } else {
+                int id = segment.kind == REMOVED_ACCOUNTS ? image.removedAccountIds[i] : image.removedPostIds[i];
+                out.varint(id - previousId);
+                previousId = id;
+                segment.recordOffsets[r] = out.length;
+            }
+        }
+        segment.payload = out.bytes;
+        segment.length = out.length;
+        segment.encodedLength = out.length;
+        if (level > 0) {
+            compress(segment);
+        }
+        return segment;
+    }
+
+    //deflate a block's payload, keeping it as it is if that does not make it smaller
+    private void compress(Segment segment){
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(segment.payload, 0, segment.length);
+            deflater.finish();
+            byte[] deflated = new byte[segment.length + 5];
+            int length = putVarint(deflated, 0, segment.length);
+            while (!deflater.finished() && length < deflated.length) {
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            if (deflater.finished() && length < segment.length) {
+                segment.payload = deflated;
+                segment.length = length;
+                segment.compressed = true;
+            }
+        } finally {
+            deflater.end();
+        }
+        segment.compressNanos = System.nanoTime() - start;
+    }
+
+    //the block a task encoded, rethrowing what the task threw as it was thrown
+    private static Segment encodedSegment(Future<Segment> encoded) throws IOException{
+        try {
+            return encoded.get();
+        } catch (ExecutionException eE) {
+            Throwable cause = eE.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Snapshot block could not be encoded!", cause);
+        } catch (InterruptedException iE) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Snapshot write was interrupted!");
+        }
+    }
+
+    //write an encoded block's header and payload, and note where its records ended up
+    private void writeSegment(Segment segment) throws IOException{
+        byte[] header = new byte[16];
+        int headerLength = 0;
+        header[headerLength++] = segment.compressed ? (byte) (segment.kind | COMPRESSED) : segment.kind;
+        headerLength = putVarint(header, headerLength, segment.records);
+        headerLength = putVarint(header, headerLength, segment.length);
+        writeFully(ByteBuffer.wrap(header, 0, headerLength));
+        segment.fileOffset = written;
+        writeFully(ByteBuffer.wrap(segment.payload, 0, segment.length));
+
+        long[] offsets = segment.kind == ACCOUNTS ? accountOffsets : segment.kind == POSTS ? postOffsets : null;
+        for (int r = 0; offsets != null && r < segment.records; r++) {
+            offsets[segment.first + r] = segment.fileOffset + segment.recordOffsets[r];
+        }
+        payloadBytes += segment.encodedLength;
+        storedBytes += segment.length;
+        compressNanos += segment.compressNanos;
+        //the payload is on disk now, keep only what the manifest needs
+        segment.payload = null;
+        segment.recordOffsets = null;
+        segments.add(segment);
+    }
+
+    protected void writeFully(ByteBuffer buffer) throws IOException{
+        written += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    //write the tables that let MappedSnapshot find any record, and SnapshotReader any block,
+    //without decoding the blocks before it
+    private void writeIndex(PlatformImage image) throws IOException{
+        long indexStart = written;
+        int postSlots = image.postCounter + 1;
+        if (image.postCount > 0) {
+            postSlots = Math.max(postSlots, image.postIds[image.postCount - 1] + 1);
+        }
+        int accountEntries = image.accountCount;
+        boolean lookupTables = !image.isDelta() && level == 0;
+        if (!lookupTables) {
+            postSlots = 0;
+            accountEntries = 0;
+        }
+        //count each post's comments and endorsements, and the posts of each kind
+        int[] commentCounts = new int[postSlots];
+        int[] endorsementCounts = new int[postSlots];
+        int[] kindCounts = new int[4];
+        for (int i = 0; i < image.postCount && postSlots > 0; i++) {
+            byte kind = image.kinds[i];
+            kindCounts[kind]++;
+            if (kind == PostIndex.COMMENT) {
+                commentCounts[image.parents[i]]++;
+            } else if (kind == PostIndex.ENDORSEMENT) {
+                endorsementCounts[image.parents[i]]++;
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        int next = 0;
+        for (int id = 0; id < postSlots; id++) {
+            if (out.remaining() < POST_ENTRY_SIZE) {
+                flush(out);
+            }
+            if (next < image.postCount && image.postIds[next] == id) {
+                out.putLong(postOffsets[next++]);
+            } else {
+                out.putLong(0);
+            }
+            out.putInt(commentCounts[id]);
+            out.putInt(endorsementCounts[id]);
+        }
+        for (int i = 0; i < accountEntries; i++) {
+            if (out.remaining() < ACCOUNT_ENTRY_SIZE) {
+                flush(out);
+            }
+            out.putInt(image.accountIds[i]);
+            out.putLong(accountOffsets[i]);
+        }
+        int handleSlots = lookupTables ? handleSlotsFor(accountEntries) : 0;
+        int[] slots = new int[handleSlots];
+        for (int i = 0; i < accountEntries; i++) {
+            int slot = slotOf(image.handles[i], handleSlots - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (handleSlots - 1);
+            }
+            slots[slot] = i + 1;
+        }
+        for (int slot = 0; slot < handleSlots; slot++) {
+            if (out.remaining() < 4) {
+                flush(out);
+            }
+            out.putInt(slots[slot]);
+        }
+        for (Segment segment : segments) {
+            if (out.remaining() < BLOCK_ENTRY_SIZE) {
+                flush(out);
+            }
+            out.putLong(segment.fileOffset);
+            out.putInt(segment.length);
+            out.putInt(segment.records);
+            out.putInt(segment.compressed ? segment.kind | COMPRESSED : segment.kind);
+        }
+        if (out.remaining() < FOOTER_SIZE) {
+            flush(out);
+        }
+        out.putLong(indexStart);
+        out.putInt(postSlots);
+        out.putInt(accountEntries);
+        out.putInt(handleSlots);
+        out.putInt(kindCounts[PostIndex.ORIGINAL]);
+        out.putInt(kindCounts[PostIndex.COMMENT]);
+        out.putInt(kindCounts[PostIndex.ENDORSEMENT]);
+        out.putInt(segments.size());
+        out.put(INDEX_MAGIC);
+        flush(out);
+    }
+
+    private void flush(ByteBuffer out) throws IOException{
+        out.flip();
+        writeFully(out);
+        out.clear();
+    }
+
+    //growable byte array a block is encoded into
+    public static class Encoder {
+        public byte[] bytes;
+        public int length;
+
+        public Encoder(int capacity){
+            bytes = new byte[capacity];
+        }
+
+        public void ensure(int extra){
+            if (length + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, length + extra)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+
+        public void varint(int value){
+            ensure(5);
+            length = putVarint(bytes, length, value);
+        }
+
+        public void string(String value){
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+    }
+
+    //write an image to a file through a temporary file next to it, so a failed save leaves any
+    //earlier file at that path whole
+    public static void writeFile(String path, PlatformImage image) throws IOException{
+        writeFile(path, image, 0);
+    }
+
+    //write an image to a file with its blocks compressed at a Deflater level, 0 for none,
+    //returning the writer, whose counts say how well they compressed
+    public static SnapshotWriter writeFile(String path, PlatformImage image, int level) throws IOException{
+        Path target = Paths.get(path);
+        Path temporary = Paths.get(path + ".tmp");
+        FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        SnapshotWriter writer = new SnapshotWriter(channel);
+        writer.level = level;
+        try {
+            writer.write(image);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (java.nio.file.AtomicMoveNotSupportedException amnsE) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return writer;
+    }
+
+    //random id for a new snapshot, never 0
+    public static long newSnapshotId(){
+        long id = 0;
+        while (id == 0) {
+            id = ThreadLocalRandom.current().nextLong();
+        }
+        return id;
+    }
+
+    //size of the handle table, a power of two at least twice the number of accounts
+    public static int handleSlotsFor(int accounts){
+        int slots = 2;
+        while (slots < accounts * 2) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    //first slot of a handle in the handle table
+    public static int slotOf(String handle, int mask){
+        int h = handle.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    //write value as an unsigned varint at position, returning the position after it
+    public static int putVarint(byte[] bytes, int position, int value){
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    //map signed values to unsigned ones, small negatives staying small
+    public static int zigzag(int value){
+        return (value << 1) ^ (value >> 31);
+    }
+
+}
@@ -1,10 +1,19 @@
 package socialmedia;
 import java.util.ArrayList;
-import java.io.FileInputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * SocialMedia is a compiling, functioning implementor of
@@ -16,13 +25,56 @@ import java.io.IOException;
  */
 public class SocialMedia implements SocialMediaPlatform {
 
-	ArrayList<Account> accounts = new ArrayList<Account>();
-	ArrayList<Post> original_posts = new ArrayList<Post>();
-	ArrayList<Endorsement> endorsements = new ArrayList<Endorsement>();
-	ArrayList<Comment> comments = new ArrayList<Comment>();
+	//accounts indexed by handle, and by id in a table addressed directly by accID
+	HashMap<String, Account> accountsByHandle = new HashMap<String, Account>();
+	Account[] accountsByID = new Account[16];
+	//ids of the posts, comments and endorsements each account has made, by account id.
+	//removed posts are left in the lists and skipped, as post ids are never reused
+	IntList[] postsByAccount = new IntList[16];
+	//author and message of every post, kept as objects or as columns
+	PostStore postStore;
+	//post ids resolved to their kind, parent and children in one lookup
+	PostIndex postIndex = new PostIndex();
+	//posts and accounts ranked by endorsements received, updated with every endorsement
+	EndorsementRanking postRanking = new EndorsementRanking();
+	EndorsementRanking accountRanking = new EndorsementRanking();
 	int accID = 0;
 	int postID = 0;
 	int commentLayer = 0;
+	//snapshot the platform's contents are read from while it is mapped and not yet changed,
+	//null once they have been decoded into the fields above
+	MappedSnapshot snapshot;
+	//id of the snapshot last saved or loaded, which a delta of the platform follows, 0 if
+	//there is none, and the ids of the accounts and posts created, changed or removed since
+	long snapshotId;
+	BitSet dirtyAccounts = new BitSet();
+	BitSet dirtyPosts = new BitSet();
+	//background save that deltas follow once it has been written, with its snapshot id and the
+	//dirty bits it took, which are put back if it fails
+	CompletableFuture<SaveReport> pendingSave;
+	long pendingSnapshotId;
+	BitSet pendingAccounts;
+	BitSet pendingPosts;
+	//Deflater level the blocks of saved snapshots are compressed with, 0 for none
+	int snapshotCompression;
+
+	/**
+	* Creates an empty platform that keeps each post as an object.
+	*/
+	public SocialMedia() {
+		this(new ObjectPostStore());
+	}
+
+	/**
+	* Creates an empty platform that keeps its posts in the given store, such as
+	* a {@link ColumnarPostStore}, which holds them in primitive columns instead of
+	* one object per post.
+	*
+	* @param postStore empty store for the authors and messages of posts.
+	*/
+	public SocialMedia(PostStore postStore) {
+		this.postStore = postStore;
+	}
 
 
 		// Account-related methods ****************************************
@@ -42,6 +94,7 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+		materialize();
 
 		//InvalidHandleException Tests
 		if (handle.length() == 0) {
@@ -55,16 +108,14 @@ public class SocialMedia implements SocialMediaPlatform {
 			}
 		}
 		//IllegalHandleException Tests
-		for (int index = 0; index < accounts.size(); index++) {
-			if (accounts.get(index).getHandle().equals(handle)) {
-				throw new IllegalHandleException("This handle is already in use!");
-			}
+		if (accountsByHandle.containsKey(handle)) {
+			throw new IllegalHandleException("This handle is already in use!");
 		}
 
 		//create account, increment id and print confirmation message
 		accID++;
 		Account newAccount = new Account(accID, handle);
-		accounts.add(newAccount);
+		indexAccount(newAccount);
 		System.out.println("Account " + handle + " created");
 
 		return accID;
@@ -86,6 +137,7 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+		materialize();
 		
 		//InvalidHandleException
 		if (handle.length() == 0) {
@@ -99,16 +151,14 @@ public class SocialMedia implements SocialMediaPlatform {
 			}
 		}
 		//IllegalHandleException
-		for (int index = 0; index < accounts.size(); index++) {
-			if (accounts.get(index).getHandle().equals(handle)) {
-				throw new IllegalHandleException("This handle is already in use!");
-			}
+		if (accountsByHandle.containsKey(handle)) {
+			throw new IllegalHandleException("This handle is already in use!");
 		}
 		
 		// create account, increment id, and print confirmation message
 		accID++;
 		Account newAccount = new Account(accID, handle, description);
-		accounts.add(newAccount);       
+		indexAccount(newAccount);
 		System.out.println("Account " + handle + " created");
 		return accID;
 	}
@@ -127,56 +177,17 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public void removeAccount(int id) throws AccountIDNotRecognisedException {
+		materialize();
 
-		boolean accountNotFound = true;
+		Account account = accountByID(id);
 
-		for(int i = 0; i < accounts.size(); i++){
-			if(accounts.get(i).getNumericalIdentifier() == id){
-				accountNotFound = false;
-			}
-		}
 		//AccountIDNotRecognisedException by ID
-		if (accountNotFound) {
+		if (account == null) {
 			throw new AccountIDNotRecognisedException("No account matched this Handle!");
-		} else{
-			//loop through accounts, posts, and likes to remove each and add empty post in place
-			for(int x = 0; x < accounts.size(); x++){
-				if(accounts.get(x).getNumericalIdentifier() == id){
-					accountNotFound = false;
-					//remove original posts
-					String accHandle = accounts.get(x).getHandle();
-					for(int i = 0; i < original_posts.size(); i++){
-						if(original_posts.get(i).getAccountHandle().equals(accHandle)){
-							original_posts.remove(i);
-							Post removedPost = new Post();
-							original_posts.add(i, removedPost);
-							accounts.get(x).decreasePostCount();
-						}
-					}
-					//remove comments
-					for(int i = 0; i < comments.size(); i++){
-						if(comments.get(i).getAccountHandle().equals(accHandle)){
-							comments.remove(i);
-							Comment removedPost = new Comment();
-							comments.add(i, removedPost);
-							accounts.get(x).decreasePostCount();
-						}
-					}
-					//remove endorsements
-					for(int i = 0; i < endorsements.size(); i++){
-						if(endorsements.get(i).getAccountHandle().equals(accHandle)){
-							endorsements.remove(i);
-							Endorsement removedPost = new Endorsement();
-							endorsements.add(i, removedPost);
-							accounts.get(x).decreasePostCount();
-						}
-					}
-					accounts.remove(x);
-				}
-			}
-		
 		}
-		
+		ArrayList<Account> removed = new ArrayList<Account>();
+		removed.add(account);
+		removeAccountsContent(removed);
 	}
 
 	/**
@@ -194,57 +205,77 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public void removeAccount(String handle) throws HandleNotRecognisedException {
+		materialize();
 		
-		boolean accountNotFound = true;
+		Account account = accountsByHandle.get(handle);
 
-		for(int i = 0; i < accounts.size(); i++){
-			if(accounts.get(i).getHandle().equals(handle)){
-				accountNotFound = false;
-			}
-		}
-		//AccountIDNotRecognisedException by ID
-		if (accountNotFound) {
+		//HandleNotRecognisedException by handle
+		if (account == null) {
 			throw new HandleNotRecognisedException("No account matched this Handle!");
-		} else{
-			//loop through accounts, posts, and likes to remove each and add empty post in place
-			for(int x = 0; x < accounts.size(); x++){
-				if(accounts.get(x).getHandle().equals(handle)){
-					accountNotFound = false;
-					//remove original posts
-					for(int i = 0; i < original_posts.size(); i++){
-						if(original_posts.get(i).getAccountHandle().equals(handle)){
-							original_posts.remove(i);
-							Post removedPost = new Post();
-							original_posts.add(i, removedPost);
-							accounts.get(x).decreasePostCount();
-						}
-					}
-					//remove comments
-					for(int i = 0; i < comments.size(); i++){
-						if(comments.get(i).getAccountHandle().equals(handle)){
-							comments.remove(i);
-							Comment removedPost = new Comment();
-							comments.add(i, removedPost);
-							accounts.get(x).decreasePostCount();
-						}
-					}
-					//remove endorsements
-					for(int i = 0; i < endorsements.size(); i++){
-						if(endorsements.get(i).getAccountHandle().equals(handle)){
-							endorsements.remove(i);
-							Endorsement removedPost = new Endorsement();
-							endorsements.add(i, removedPost);
-							accounts.get(x).decreasePostCount();
-						}
-					}
-					accounts.remove(x);
-				}
+		}
+		ArrayList<Account> removed = new ArrayList<Account>();
+		removed.add(account);
+		removeAccountsContent(removed);
+	}
+
+	/**
+	* The method removes the accounts with the corresponding handles from the
+	* platform, with all of their posts and likes, sharing one pass over their
+	* content.
+	* <p>
+	* The state of this SocialMediaPlatform must be be unchanged if any exceptions
+	* are thrown.
+	*
+	* @param handles handles of the accounts to remove.
+	* @throws HandleNotRecognisedException if any handle does not match to any
+	* account in the system.
+	*/
+	public void removeAccounts(Collection<String> handles) throws HandleNotRecognisedException {
+		materialize();
+
+		//check every handle before removing anything, ignoring repeats
+		LinkedHashSet<Account> accounts = new LinkedHashSet<Account>();
+		for (String handle : handles) {
+			Account account = accountsByHandle.get(handle);
+			if (account == null) {
+				throw new HandleNotRecognisedException("No account matched the handle " + handle + "!");
 			}
-		
+			accounts.add(account);
 		}
-		
+		removeAccountsContent(new ArrayList<Account>(accounts));
 	}
 
+	//remove the posts, comments, and likes of the accounts, then the accounts themselves.
+	//only the posts each account owns are visited, in one pass over all of them
+	private void removeAccountsContent(ArrayList<Account> accounts) {
+
+		IntList owned = new IntList();
+		for (int i = 0; i < accounts.size(); i++) {
+			owned.addAll(postsByAccount[accounts.get(i).getNumericalIdentifier()]);
+		}
+		for (int i = 0; i < owned.size(); i++) {
+			int id = owned.get(i);
+			byte kind = postIndex.kindOf(id);
+			if (kind == PostIndex.REMOVED) {
+				//already deleted, or taken out earlier in this pass
+				continue;
+			}
+			Account author = accountByID(postStore.accountOf(id));
+			if (kind == PostIndex.ENDORSEMENT) {
+				removeEndorsement(id);
+			} else {
+				removePost(id, kind);
+			}
+			//only original posts were counted when they were made
+			if (kind == PostIndex.ORIGINAL) {
+				author.decreasePostCount();
+			}
+		}
+		for (int i = 0; i < accounts.size(); i++) {
+			accountRanking.remove(accounts.get(i).getNumericalIdentifier());
+			unindexAccount(accounts.get(i));
+		}
+	}
 
 	/**
 	* The method replaces the oldHandle of an account by the newHandle.
@@ -265,7 +296,7 @@ public class SocialMedia implements SocialMediaPlatform {
 	@Override
 	public void changeAccountHandle(String oldHandle, String newHandle)
 			throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
-				boolean accountNotFound = true;
+		materialize();
 
 			//InvalidHandleException
 			if (newHandle.length() == 0) {
@@ -280,42 +311,21 @@ public class SocialMedia implements SocialMediaPlatform {
 			}
 	
 			//IllegalHandleException
-			for (int index = 0; index < accounts.size(); index++) {
-				if (accounts.get(index).getHandle().equals(newHandle)) {
-					throw new IllegalHandleException("New handle is already in use!");
-				}
-			}
-	
-			//change account handle of account and posts linking back to old account handle
-			for(int x = 0; x < accounts.size(); x++){
-				if(accounts.get(x).getHandle().equals(oldHandle)){
-					accounts.get(x).setHandle(newHandle);;
-					accountNotFound = false;
-					//change handle linked by original posts
-					for(int i = 0; i < original_posts.size(); i++){
-						if(original_posts.get(i).getAccountHandle().equals(oldHandle)){
-							original_posts.get(i).setAccountHandle(newHandle);
-						}
-					}
-					//change handle linked by comments
-					for(int i = 0; i < comments.size(); i++){
-						if(comments.get(i).getAccountHandle().equals(oldHandle)){
-							comments.get(i).setAccountHandle(newHandle);
-						}
-					}
-					//change handle linked by endorsements
-					for(int i = 0; i < endorsements.size(); i++){
-						if(endorsements.get(i).getAccountHandle().equals(oldHandle)){
-							endorsements.get(i).setAccountHandle(newHandle);
-						}
-					}
-				}
+			if (accountsByHandle.containsKey(newHandle)) {
+				throw new IllegalHandleException("New handle is already in use!");
 			}
-	
+
 			//HandleNotRecognisedException
-			if (accountNotFound) {
+			Account account = accountsByHandle.get(oldHandle);
+			if (account == null) {
 				throw new HandleNotRecognisedException("No account matched this handle!");
 			}
+	
+			//change account handle, posts refer to the account by id so they need no change
+			accountsByHandle.remove(oldHandle);
+			account.setHandle(newHandle);
+			accountsByHandle.put(newHandle, account);
+			dirtyAccounts.set(account.getNumericalIdentifier());
 
 	}
 
@@ -332,21 +342,18 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+		materialize();
 		// update account description
-		boolean accountNotFound = true;
-		
-		//change account's old description to new description
-		for(int x = 0; x < accounts.size(); x++){
-			if(accounts.get(x).getHandle().equals(handle)){
-				accounts.get(x).setDescriptionField(description);
-				accountNotFound = false;
-			}
-		}
+		Account account = accountsByHandle.get(handle);
 
 		//HandleNotRecognisedException
-		if (accountNotFound) {
+		if (account == null) {
 			throw new HandleNotRecognisedException("No account matched this handle!");
 		}
+
+		//change account's old description to new description
+		account.setDescriptionField(description);
+		dirtyAccounts.set(account.getNumericalIdentifier());
 	}
 
 	/**
@@ -368,24 +375,23 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public String showAccount(String handle) throws HandleNotRecognisedException {
-		
-		boolean accountNotFound = true;
-		String shown = "";
-
-		//loop through accounts to set return variable
-		for(int x = 0; x < accounts.size(); x++){
-			if(accounts.get(x).getHandle().equals(handle)){
-				shown = "ID: " + accounts.get(x).getNumericalIdentifier() + "\nHandle: " + accounts.get(x).getHandle() + "\nDescription: " + accounts.get(x).getDescriptionField() + "\nPost count: " + accounts.get(x).getPostCount() + "Endorsement count: " + accounts.get(x).getEndorsementCount();
-				accountNotFound = false;
-			}
+		if (snapshot != null) {
+			return snapshot.showAccount(handle);
 		}
+		
+		Account account = accountsByHandle.get(handle);
 
 		//HandleNotRecognisedException
-		if (accountNotFound) {
+		if (account == null) {
 			throw new HandleNotRecognisedException("No account matched this handle!");
-		} else {
-			return shown;
 		}
+
+		return formatAccount(account.getNumericalIdentifier(), account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+	}
+
+	//an account as showAccount formats it
+	static String formatAccount(int id, String handle, String description, int postCount, int endorsementCount) {
+		return "ID: " + id + "\nHandle: " + handle + "\nDescription: " + description + "\nPost count: " + postCount + "Endorsement count: " + endorsementCount;
 	}
 
 		// End Account-related methods ****************************************
@@ -410,38 +416,13 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
-		
-		boolean accountNotFound = true;
+		materialize();
 
-		//InvalidPostException
-		if (message.length() == 0) {
-			throw new InvalidPostException("Post message cannot be empty!");
-		} else if (message.length() > 100){ //message is longer than 100 characters
-			throw new InvalidPostException("Post message cannot be longer than 100 characters!!"); 
-		} else {
-			for(int x = 0; x < accounts.size(); x++){
-				//if account handle is the same
-				if(accounts.get(x).getHandle().equals(handle)){
-
-					//increment postID, post count, and create new post
-					postID++;
-					accounts.get(x).increasePostCount();
-					int originalAccID = accounts.get(x).getNumericalIdentifier();
-					Post newPost = new Post(postID, originalAccID, handle, message);
-					original_posts.add(newPost);
-					accountNotFound = false;
-				}
-			}
-
-			//HandleNotRecognisedException
-			if (accountNotFound) {
-				throw new HandleNotRecognisedException("No account matched this handle!");
-			} else {
-				System.out.println("Post by: " + handle + " created");
-				return postID;
-			}
-		}
-		
+		//check the post, then increment postID, post count, and create new post
+		Account account = checkPost(handle, message);
+		int id = addPost(account, message);
+		System.out.println("Post by: " + handle + " created");
+		return id;
 	}
 
 	/**
@@ -472,71 +453,11 @@ public class SocialMedia implements SocialMediaPlatform {
 	@Override
 	public int endorsePost(String handle, int id)
 			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
-				
-			boolean accountNotFound = true;
-			boolean postNotFound = true;
-	
-			//loop through accounts
-			for (int x = 0; x < accounts.size(); x++) {
-				//if account handle of endorser is found
-				if (accounts.get(x).getHandle().equals(handle)) {
-					accountNotFound = false;
-					//match post id to either an original post or comment to endorse
-					//endorse an original post
-					for (int i = 0; i < original_posts.size(); i++) {
-						if (original_posts.get(i).getNumericalIdentifier() == id) {
-							postID++;
-							postNotFound = false;
-	
-							String message = "EP: " + original_posts.get(i).getMessage();
-							Endorsement newEndorsement = new Endorsement(postID, accounts.get(x).getNumericalIdentifier(), handle, message, id);
-							endorsements.add(newEndorsement);
-	
-							//increase endorsement count for account being endorsed	
-							for(int j = 0; j < accounts.size(); j++){
-								if(accounts.get(j).getHandle().equals(original_posts.get(i).getAccountHandle())){
-									accounts.get(j).increaseEndorsementCount();
-								}
-							}
-						}
-					}
-					//endorse a comment
-					for (int i = 0; i < comments.size(); i++) {
-						if (comments.get(i).getNumericalIdentifier() == id) {
-							postID++;
-							postNotFound = false;
-	
-							String message = "EP: " + comments.get(i).getMessage();
-							Endorsement newEndorsement = new Endorsement(postID, accounts.get(x).getNumericalIdentifier(), handle, message, id);
-							endorsements.add(newEndorsement);
-	
-							//increase endorsement count for account being endorsed	
-							for(int j = 0; j < accounts.size(); j++){
-								if(accounts.get(j).getHandle().equals(comments.get(i).getAccountHandle())){
-									accounts.get(j).increaseEndorsementCount();
-								}
-							}
-						}
-					}
-				}
-			}
-			
-			//HandleNotRecognisedException
-			if (accountNotFound) {
-				throw new HandleNotRecognisedException("No account matched this handle!");
-			} else if (postNotFound) {
-				//NotActionablePostException
-				for (int i = 0; i < endorsements.size(); i++) {
-					if (endorsements.get(i).getNumericalIdentifier() == id) {
-						throw new NotActionablePostException("Endorsement posts are not endorsable!");
-					}	
-				}	
-	
-				//PostIDNotRecognisedException
-				throw new PostIDNotRecognisedException("This ID does not match any in the system!");
-			} else {
-				return postID;
-			}
+		materialize();
+
+			//check the endorsement, then create it and count it for the endorsed post and account
+			Account endorser = checkEndorsement(handle, id);
+			return addEndorsement(endorser, id);
 	}
 
 	/**
@@ -567,62 +488,121 @@ public class SocialMedia implements SocialMediaPlatform {
 	@Override
 	public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
 			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+		materialize();
 
-			boolean accountNotFound = true;
-			boolean notActionablePost = false;
-			boolean postNotFound = true;
-			
-			//InvalidPostException
-			if (message.length() == 0) {
-				throw new InvalidPostException("Post message cannot be empty!");
-			} else if (message.length() > 100){
-				throw new InvalidPostException("Post message cannot be longer than 100 characters!!"); //message is longer than 100 characters
-			} else {
-				//loop through accounts to see if handle is found
-				for (int x = 0; x < accounts.size(); x++) {
-					if (accounts.get(x).getHandle().equals(handle)) {
-						accountNotFound = false;
-					}
-				}
-				//loop through endorsements, original posts, and comments to find if the post id exists in the system
-				for (int x = 0; x < endorsements.size(); x++) {
-					if (endorsements.get(x).getNumericalIdentifier() == id) {
-						notActionablePost = true;
-					}
-				}		
-				for (int x = 0; x < original_posts.size(); x++) {
-					if (original_posts.get(x).getNumericalIdentifier() == id) {
-						postNotFound = false;
-					}
-				}
-				for (int x = 0; x < comments.size(); x++) {
-					if (comments.get(x).getNumericalIdentifier() == id) {
-						postNotFound = false;
-					}
-				}
-				//if account or post isn't found, or if the post is an endorsement, throw exceptions
-				if (accountNotFound) {
-					throw new HandleNotRecognisedException("No account matched this handle!");
-				} else if (notActionablePost) {
-					throw new NotActionablePostException("Endorsement posts are not commentable!");
-				} else if (postNotFound) {
-					throw new PostIDNotRecognisedException("This ID does not match any posts or comments in the system!");
-				} else { //no errors in finding account or post
-					for(int x = 0; x < accounts.size(); x++){
-						//if account id matches
-						if(accounts.get(x).getHandle().equals(handle)){
-							//create comment and increment id
-							postID++;
-							int accountIdentifier = accounts.get(x).getNumericalIdentifier();
-							Comment newComment = new Comment(postID, accountIdentifier, handle, id, message);
-							comments.add(newComment);
-						}
-					}
-					
-					//return postID
-					return postID;
-				}
+			//check the comment, then create it and increment id
+			Account account = checkComment(handle, id, message);
+			return addComment(account, id, message);
+	}
+
+	/**
+	* The method creates a batch of posts, as createPost would one at a time. The
+	* whole batch is checked before anything is created: if any item is invalid,
+	* none are created, and the exception each invalid item would have thrown is
+	* reported. Otherwise the posts are given consecutive IDs, in batch order.
+	*
+	* @param posts the handle and message of each post.
+	* @return the IDs of the created posts, in batch order.
+	* @throws BatchPostException if any handle does not match to any account in the
+	* system, or any message is empty or has more than 100 characters.
+	*/
+	public int[] createPosts(List<PostRequest> posts) throws BatchPostException {
+		materialize();
+
+		//check every item, keeping the accounts so they are only looked up once
+		Account[] accounts = new Account[posts.size()];
+		Exception[] failures = new Exception[posts.size()];
+		int failed = 0;
+		for (int i = 0; i < posts.size(); i++) {
+			try {
+				accounts[i] = checkPost(posts.get(i).getHandle(), posts.get(i).getMessage());
+			} catch (HandleNotRecognisedException | InvalidPostException invalid) {
+				failures[i] = invalid;
+				failed++;
 			}
+		}
+		checkBatch(failed, failures);
+
+		int[] ids = new int[posts.size()];
+		for (int i = 0; i < posts.size(); i++) {
+			ids[i] = addPost(accounts[i], posts.get(i).getMessage());
+		}
+		return ids;
+	}
+
+	/**
+	* The method creates a batch of endorsements, as endorsePost would one at a
+	* time. The whole batch is checked before anything is created: if any item is
+	* invalid, none are created, and the exception each invalid item would have
+	* thrown is reported. Otherwise the endorsements are given consecutive IDs, in
+	* batch order.
+	*
+	* @param endorsements the handle of the endorsing account and the ID of the
+	* endorsed post of each endorsement.
+	* @return the IDs of the created endorsements, in batch order.
+	* @throws BatchPostException if any handle does not match to any account in the
+	* system, any ID does not match to any post in the system, or any ID refers
+	* to an endorsement post.
+	*/
+	public int[] endorsePosts(List<PostRequest> endorsements) throws BatchPostException {
+		materialize();
+
+		Account[] accounts = new Account[endorsements.size()];
+		Exception[] failures = new Exception[endorsements.size()];
+		int failed = 0;
+		for (int i = 0; i < endorsements.size(); i++) {
+			try {
+				accounts[i] = checkEndorsement(endorsements.get(i).getHandle(), endorsements.get(i).getID());
+			} catch (HandleNotRecognisedException | PostIDNotRecognisedException | NotActionablePostException invalid) {
+				failures[i] = invalid;
+				failed++;
+			}
+		}
+		checkBatch(failed, failures);
+
+		int[] ids = new int[endorsements.size()];
+		for (int i = 0; i < endorsements.size(); i++) {
+			ids[i] = addEndorsement(accounts[i], endorsements.get(i).getID());
+		}
+		return ids;
+	}
+
+	/**
+	* The method creates a batch of comments, as commentPost would one at a time.
+	* The whole batch is checked before anything is created: if any item is
+	* invalid, none are created, and the exception each invalid item would have
+	* thrown is reported. Otherwise the comments are given consecutive IDs, in
+	* batch order. Comments can only refer to posts that exist before the batch.
+	*
+	* @param comments the handle of the commenting account, the ID of the post
+	* commented on and the message of each comment.
+	* @return the IDs of the created comments, in batch order.
+	* @throws BatchPostException if any handle does not match to any account in the
+	* system, any ID does not match to any post in the system or refers to an
+	* endorsement post, or any message is empty or has more than 100 characters.
+	*/
+	public int[] commentPosts(List<PostRequest> comments) throws BatchPostException {
+		materialize();
+
+		Account[] accounts = new Account[comments.size()];
+		Exception[] failures = new Exception[comments.size()];
+		int failed = 0;
+		for (int i = 0; i < comments.size(); i++) {
+			PostRequest comment = comments.get(i);
+			try {
+				accounts[i] = checkComment(comment.getHandle(), comment.getID(), comment.getMessage());
+			} catch (HandleNotRecognisedException | PostIDNotRecognisedException | NotActionablePostException | InvalidPostException invalid) {
+				failures[i] = invalid;
+				failed++;
+			}
+		}
+		checkBatch(failed, failures);
+
+		int[] ids = new int[comments.size()];
+		for (int i = 0; i < comments.size(); i++) {
+			ids[i] = addComment(accounts[i], comments.get(i).getID(), comments.get(i).getMessage());
+		}
+		return ids;
 	}
 
 	/**
@@ -646,69 +626,27 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public void deletePost(int id) throws PostIDNotRecognisedException {
+		materialize();
 
-		boolean postNotFound = true;
-
-		//PostIDNotRecognisedException		
-		for (int index = 0; index < original_posts.size(); index++) {
-			if (original_posts.get(index).getNumericalIdentifier() == id) {
-				postNotFound = false;
-			}
-		}
-		for (int index = 0; index < comments.size(); index++) {
-			if (comments.get(index).getNumericalIdentifier() == id) {
-				postNotFound = false;
-			}
-		}
-		for (int index = 0; index < endorsements.size(); index++) {
-			if (endorsements.get(index).getNumericalIdentifier() == id) {
-				postNotFound = false;
-			}
-		}
+		byte kind = postIndex.kindOf(id);
 		//if post isn't found, throw exception
-		if (postNotFound) {
+		if (kind == PostIndex.REMOVED) {
 			throw new PostIDNotRecognisedException("This ID does not match any posts in the system!");
 		}
 
-		//Remove endorements and decrease endorsement count
-		for(int index = 0; index < endorsements.size(); index++){
-			if(endorsements.get(index).getOriginalID() == id){
-				endorsements.remove(index);
-				for(int i = 0; i < accounts.size(); i++){
-					if(accounts.get(i).getNumericalIdentifier() == comments.get(index).getAccountIdentifier()){
-						accounts.get(i).decreaseEndorsementCount();
-					}
-				}
-			}
+		if (kind == PostIndex.ENDORSEMENT) {
+			//remove the endorsement and decrease the endorsed post and account's endorsement count
+			removeEndorsement(id);
+			return;
 		}
 
-		//Loop through and remove Comment based of id
-		for (int index = 0; index < comments.size(); index++) {
-			if (comments.get(index).getNumericalIdentifier() == id) {
-				comments.remove(index);
-				Comment removedPost = new Comment();
-				comments.add(index, removedPost);
-				//Decrease linked Account post count
-				for(int i = 0; i < accounts.size(); i++){
-					if(accounts.get(i).getNumericalIdentifier() == comments.get(index).getAccountIdentifier()){
-						accounts.get(i).decreasePostCount();
-					}
-				}
-			}
-		}
-		//Loop through and remove Post based of id
-		for (int index = 0; index < original_posts.size(); index++) {
-			if (original_posts.get(index).getNumericalIdentifier() == id) {
-				original_posts.remove(index);
-				Post removedPost = new Post();
-				original_posts.add(index, removedPost);
-				//Decrease linked Account post count
-				for(int i = 0; i < accounts.size(); i++){
-					if(accounts.get(i).getNumericalIdentifier() == original_posts.get(index).getAccountIdentifier()){
-						accounts.get(i).decreasePostCount();
-					}
-				}
-			}
+		//account that wrote the post, used to update its counts
+		Account author = accountByID(postStore.accountOf(id));
+		removePost(id, kind);
+		//Decrease linked Account post count, which counts only original posts
+		if (author != null && kind == PostIndex.ORIGINAL) {
+			author.decreasePostCount();
+			dirtyAccounts.set(author.getNumericalIdentifier());
 		}
 	}
 
@@ -731,41 +669,30 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public String showIndividualPost(int id) throws PostIDNotRecognisedException {
-		
-		String shown = "";
-		Account posterAccount = new Account(0, "");
-		boolean postIDnotFound = true;
-		//loop through accounts to see if id matches, and set posterAccount = to it
-		for(int i = 0; i < accounts.size(); i++){
-			if(accounts.get(i).getNumericalIdentifier() == id){
-				posterAccount = accounts.get(i);
-			}
-		}
-		//find what type of post the id correlates to and display based on the type
-		for(int i = 0; i < original_posts.size(); i++){
-			if(original_posts.get(i).getNumericalIdentifier() == id){
-				shown = "ID: " + original_posts.get(i).getNumericalIdentifier() + "\nAccount: " + posterAccount.getHandle() + "\nNo. Endorsements: " + posterAccount.getEndorsementCount() + "\nPost count: " + posterAccount.getPostCount() + "\n" + original_posts.get(i).getMessage();
-				postIDnotFound = false;
-			}
-		}
-		for(int i = 0; i < comments.size(); i++){
-			if(comments.get(i).getNumericalIdentifier() == id){
-				shown = "ID: " + comments.get(i).getNumericalIdentifier() + "\nAccount: " + posterAccount.getHandle() + "\nNo. Endorsements: " + posterAccount.getEndorsementCount() + "\nPost count: " + posterAccount.getPostCount() + "\n" + comments.get(i).getMessage();
-				postIDnotFound = false;
-			}
-		}
-		for(int i = 0; i < endorsements.size(); i++){
-			if(endorsements.get(i).getNumericalIdentifier() == id){
-				shown = "EP@ " + posterAccount.getHandle() + " " + endorsements.get(i).getMessage();
-				postIDnotFound = false;
-			}
+		if (snapshot != null) {
+			return snapshot.showIndividualPost(id);
 		}
+		
+		byte kind = postIndex.kindOf(id);
 		//Throw exception if post not found
-		if(postIDnotFound){
+		if(kind == PostIndex.REMOVED){
 				throw new PostIDNotRecognisedException("Post ID not recognized");
 		}
-			
-		return shown;
+
+		//set posterAccount to the account that wrote the post
+		Account posterAccount = accountByID(postStore.accountOf(id));
+		if (posterAccount == null) {
+			posterAccount = new Account(0, "");
+		}
+		return formatPost(id, kind, posterAccount.getHandle(), postIndex.endorsementCountOf(id), postIndex.commentCountOf(id), postStore.messageOf(id));
+	}
+
+	//a post as showIndividualPost formats it, depending on its kind
+	static String formatPost(int id, byte kind, String handle, int endorsementCount, int commentCount, String message) {
+		if (kind == PostIndex.ENDORSEMENT) {
+			return "EP@ " + handle + " " + message;
+		}
+		return "ID: " + id + "\nAccount: " + handle + "\nNo. endorsements: " + endorsementCount + " | No. comments: " + commentCount + "\n" + message;
 	}
 
 	/**
@@ -849,71 +776,252 @@ public class SocialMedia implements SocialMediaPlatform {
 	public StringBuilder showPostChildrenDetails(int id)
 			throws PostIDNotRecognisedException, NotActionablePostException {
 
-		boolean postNotFound = true;
-		boolean notActionablePost = true;
 		StringBuilder str = new StringBuilder();
-		ArrayList<Integer> arrListPostId = new ArrayList<Integer>();
-		//used to keep track of indentation
-		Integer indentCount = 0;
-
-		for (int index = 0; index < endorsements.size(); index++) {
-			if (endorsements.get(index).getNumericalIdentifier() == id) {
-				notActionablePost = false;
-			}
+		try {
+			writePostChildrenDetails(id, str, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+		} catch (IOException ioE) { //a StringBuilder never throws, so this cannot happen
+			throw new IllegalStateException("Input Output exception", ioE);
 		}
-		//if not endorsement post, throw exception
-		if (notActionablePost) {
+		return str;
+	}
+
+	/**
+	* The method writes the same tree as {@link #showPostChildrenDetails(int)} into
+	* out one post at a time, so a large thread never has to be held in memory as a
+	* whole. Only posts at most maxDepth replies below the given post are written,
+	* and the walk can be paged: posts are numbered in the order they are written,
+	* the first offset of them are skipped and at most limit are written. To fetch
+	* the next page, call again with offset increased by the returned count; a
+	* count below limit means the thread is finished. Indentation is always
+	* relative to the given post, so pages can be joined together.
+	* <p>
+	* Calling it with maxDepth and limit of Integer.MAX_VALUE and offset 0 writes
+	* exactly what showPostChildrenDetails returns.
+	*
+	* @param id of the post the thread starts from.
+	* @param out where the formatted posts are written, such as a Writer or StringBuilder.
+	* @param maxDepth deepest level of replies written, 0 writes only the post itself.
+	* @param offset number of posts to skip before writing.
+	* @param limit most posts to write.
+	* @return the number of posts written.
+	* @throws PostIDNotRecognisedException if the ID does not match to any post in
+	* the system.
+	* @throws NotActionablePostException if the ID refers to an endorsement post.
+	* @throws IOException if out cannot be written to.
+	*/
+	public int writePostChildrenDetails(int id, Appendable out, int maxDepth, int offset, int limit)
+			throws PostIDNotRecognisedException, NotActionablePostException, IOException {
+		materialize();
+
+		byte kind = postIndex.kindOf(id);
+		//if endorsement post, throw exception
+		if (kind == PostIndex.ENDORSEMENT) {
 			throw new NotActionablePostException("This ID is for an Endorsement post!");
 		}
+		//if post isn't found, throw exception
+		if (kind == PostIndex.REMOVED) {
+			throw new PostIDNotRecognisedException("This ID does not match any posts in the system!");
+		}
 
-		//PostIDNotRecognisedException		
-		for (int index = 0; index < original_posts.size(); index++) {
-			if (original_posts.get(index).getNumericalIdentifier() == id) {
-				postNotFound = false;
+		//walk the thread in order using the comment lists, climbing back up through parent
+		//links once a branch is finished, so no stack or recursion is needed however deep it is
+		int currentPostId = id;
+		int depth = 0;
+		int position = 0;
+		int written = 0;
+		while (written < limit) {
+			boolean showReplies = depth < maxDepth && postIndex.firstCommentOf(currentPostId) != 0;
+			if (position >= offset) {
+				appendThreadNode(out, showIndividualPost(currentPostId), depth, showReplies);
+				written++;
 			}
-		}
-		for (int index = 0; index < comments.size(); index++) {
-			if (comments.get(index).getNumericalIdentifier() == id) {
-				postNotFound = false;
+			position++;
+
+			//go down to the first reply if there is one
+			if (showReplies) {
+				currentPostId = postIndex.firstCommentOf(currentPostId);
+				depth++;
+				continue;
+			}
+			//otherwise climb until a post has a later sibling, stopping back at the start
+			while (currentPostId != id && postIndex.nextSiblingOf(currentPostId) == 0) {
+				currentPostId = postIndex.parentOf(currentPostId);
+				depth--;
+			}
+			if (currentPostId == id) {
+				break;
 			}
+			currentPostId = postIndex.nextSiblingOf(currentPostId);
 		}
-		//if post isn't found, throw exception
-		if (postNotFound) {
-			throw new PostIDNotRecognisedException("This ID does not match any posts in the system!");
+		return written;
+	}
+
+	//checks shared by the single and batch methods, each returning the account making the post
+	private Account checkPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+
+		//InvalidPostException
+		checkMessage(message);
+
+		//HandleNotRecognisedException
+		Account account = accountsByHandle.get(handle);
+		if (account == null) {
+			throw new HandleNotRecognisedException("No account matched this handle!");
 		}
-		
-		//loop through original_posts and comments to find "Original" post we are finding the children of
-		for(int j = 0; j < original_posts.size(); j++){
-			if (original_posts.get(j).getNumericalIdentifier() == id) {
-				str.append(showIndividualPost(original_posts.get(j).getAccountIdentifier()));
-				arrListPostId.add(original_posts.get(j).getNumericalIdentifier());
-				indentCount++;
-			}
+		return account;
+	}
+
+	private Account checkEndorsement(String handle, int id)
+			throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+
+		//find account of endorser
+		Account endorser = accountsByHandle.get(handle);
+		//HandleNotRecognisedException
+		if (endorser == null) {
+			throw new HandleNotRecognisedException("No account matched this handle!");
 		}
-		for(int j = 0; j < comments.size(); j++){
-			if(comments.get(j).getNumericalIdentifier() == id){
-				str.append(showIndividualPost(comments.get(j).getAccountIdentifier()));
-				arrListPostId.add(comments.get(j).getNumericalIdentifier());
-				indentCount++;
-			}
+
+		//match post id to either an original post or comment to endorse
+		byte kind = postIndex.kindOf(id);
+		if (kind == PostIndex.ENDORSEMENT) {
+			//NotActionablePostException
+			throw new NotActionablePostException("Endorsement posts are not endorsable!");
+		} else if (kind == PostIndex.REMOVED) {
+			//PostIDNotRecognisedException
+			throw new PostIDNotRecognisedException("This ID does not match any in the system!");
+		}
+		return endorser;
+	}
+
+	private Account checkComment(String handle, int id, String message) throws HandleNotRecognisedException,
+			PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+
+		//InvalidPostException
+		checkMessage(message);
+
+		//see if handle is found and what kind of post the id refers to
+		Account account = accountsByHandle.get(handle);
+		byte kind = postIndex.kindOf(id);
+
+		//if account or post isn't found, or if the post is an endorsement, throw exceptions
+		if (account == null) {
+			throw new HandleNotRecognisedException("No account matched this handle!");
+		} else if (kind == PostIndex.ENDORSEMENT) {
+			throw new NotActionablePostException("Endorsement posts are not commentable!");
+		} else if (kind == PostIndex.REMOVED) {
+			throw new PostIDNotRecognisedException("This ID does not match any posts or comments in the system!");
+		}
+		return account;
+	}
+
+	private void checkMessage(String message) throws InvalidPostException {
+		if (message.length() == 0) {
+			throw new InvalidPostException("Post message cannot be empty!");
+		} else if (message.length() > 100){ //message is longer than 100 characters
+			throw new InvalidPostException("Post message cannot be longer than 100 characters!!");
 		}
+	}
 
-		//While arrListPostId has posts not yet added to str
-		while (arrListPostId.size() != 0) {
-			//record id, append last post to and remove last entry 
-			int currentPostId = arrListPostId.get(arrListPostId.size() -1);
-			arrListPostId.removeIf(lastId -> lastId == currentPostId);
-			str.append(showIndividualPost(currentPostId));
+	//throw the failures of a batch, if any of its items failed
+	private void checkBatch(int failed, Exception[] failures) throws BatchPostException {
+		if (failed > 0) {
+			throw new BatchPostException(failed + " of the " + failures.length + " items in the batch are invalid!", failures);
+		}
+	}
 
-			//Loop through comments finding linked posts, recording them in arrListPostId
-			for(int j = 0; j < comments.size(); j++){
-				if(comments.get(j).getLinkedID() == currentPostId){
-					arrListPostId.add(comments.get(j).getNumericalIdentifier());
+	//create a checked post, endorsement or comment with the next id, returning the id
+	private int addPost(Account account, String message) {
+		postID++;
+		account.increasePostCount();
+		dirtyAccounts.set(account.getNumericalIdentifier());
+		storePost(postID, PostIndex.ORIGINAL, account.getNumericalIdentifier(), 0, message);
+		return postID;
+	}
+
+	private int addEndorsement(Account endorser, int id) {
+		postID++;
+		String message = "EP: " + postStore.messageOf(id);
+		storePost(postID, PostIndex.ENDORSEMENT, endorser.getNumericalIdentifier(), id, message);
+
+		//increase endorsement count for post and account being endorsed
+		postRanking.increase(id);
+		Account endorsed = accountByID(postStore.accountOf(id));
+		if (endorsed != null) {
+			endorsed.increaseEndorsementCount();
+			accountRanking.increase(endorsed.getNumericalIdentifier());
+			dirtyAccounts.set(endorsed.getNumericalIdentifier());
+		}
+		return postID;
+	}
+
+	private int addComment(Account account, int id, String message) {
+		postID++;
+		storePost(postID, PostIndex.COMMENT, account.getNumericalIdentifier(), id, message);
+		return postID;
+	}
+
+	//replace an original post or comment with an empty one, removing its endorsements
+	private void removePost(int id, byte kind) {
+
+		//Remove endorements and decrease endorsement count
+		int endorsementID = postIndex.firstEndorsementOf(id);
+		while (endorsementID != 0) {
+			int nextEndorsementID = postIndex.nextSiblingOf(endorsementID);
+			removeEndorsement(endorsementID);
+			endorsementID = nextEndorsementID;
+		}
+		postRanking.remove(id);
+
+		//replace the post or comment with an empty one
+		postStore.remove(id);
+		postIndex.remove(id);
+		dirtyPosts.set(id);
+	}
+
+	//replace an endorsement with an empty one, taking it off the endorsed post and account
+	private void removeEndorsement(int endorsementID) {
+		int originalID = postIndex.parentOf(endorsementID);
+		postStore.remove(endorsementID);
+		postIndex.remove(endorsementID);
+		dirtyPosts.set(endorsementID);
+		if (postIndex.kindOf(originalID) != PostIndex.REMOVED) {
+			postRanking.decrease(originalID);
+			Account endorsed = accountByID(postStore.accountOf(originalID));
+			if (endorsed != null) {
+				endorsed.decreaseEndorsementCount();
+				accountRanking.decrease(endorsed.getNumericalIdentifier());
+				dirtyAccounts.set(endorsed.getNumericalIdentifier());
+			}
+		}
+	}
+
+	//append one post of a thread, indented by its depth below the post the thread starts from:
+	//the first line of a reply is marked "| > " and a post with replies is followed by "|"
+	static void appendThreadNode(Appendable out, String post, int depth, boolean hasReplies) throws IOException {
+		int lineStart = 0;
+		while (lineStart <= post.length()) {
+			int lineEnd = post.indexOf('\n', lineStart);
+			if (lineEnd == -1) {
+				lineEnd = post.length();
+			}
+			if (depth > 0) {
+				appendIndent(out, lineStart == 0 ? depth - 1 : depth);
+				if (lineStart == 0) {
+					out.append("| > ");
 				}
 			}
+			out.append(post, lineStart, lineEnd).append('\n');
+			lineStart = lineEnd + 1;
 		}
+		if (hasReplies) {
+			appendIndent(out, depth);
+			out.append("|\n");
+		}
+	}
 
-		return str;
+	static void appendIndent(Appendable out, int depth) throws IOException {
+		for (int i = 0; i < depth; i++) {
+			out.append("    ");
+		}
 	}
 
 		// End Post-related methods ****************************************
@@ -930,9 +1038,12 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int getNumberOfAccounts() {
+		if (snapshot != null) {
+			return snapshot.accountCount;
+		}
 
 		//get account size and return
-		int numberOfAccounts = accounts.size();
+		int numberOfAccounts = accountsByHandle.size();
 		return numberOfAccounts;
 	}
 
@@ -946,20 +1057,12 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int getTotalOriginalPosts() {
-
-		//create arraylist of total posts
-		ArrayList<Post> totaloriginalposts = new ArrayList<Post>();
-		//loop through original post array
-		for(int i = 0; i < original_posts.size(); i++){
-			//if post is not removed
-			if(original_posts.get(i).getAccountIdentifier() != -1){
-				//add to total array
-				totaloriginalposts.add(original_posts.get(i));
-			}
+		if (snapshot != null) {
+			return snapshot.originalPostCount;
 		}
-		//return the size of the total arraylist
-		int numberOfOriginalPosts = totaloriginalposts.size();
-		return numberOfOriginalPosts;
+
+		//live original posts are counted by the post index as they are added and removed
+		return postIndex.getOriginalPostCount();
 	}
 
 	/**
@@ -971,21 +1074,12 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int getTotalEndorsmentPosts() {
-
-		//create arraylist to store total endorsements
-		ArrayList<Endorsement> totalendorsements = new ArrayList<Endorsement>();
-		//loop through endorsements arraylist
-		for(int i = 0; i < endorsements.size(); i++){
-			//if endorsement is not removed
-			if(endorsements.get(i).getAccountIdentifier() != -1){
-				//add to total endorsements array
-				totalendorsements.add(endorsements.get(i));
-			}
+		if (snapshot != null) {
+			return snapshot.endorsementPostCount;
 		}
 
-		//return the size of the total arraylist
-		int numberOfEndorsementPosts = totalendorsements.size();
-		return numberOfEndorsementPosts;
+		//live endorsements are counted by the post index as they are added and removed
+		return postIndex.getEndorsementPostCount();
 	}
 
 	/**
@@ -998,76 +1092,79 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public int getTotalCommentPosts() {
-
-		//create arraylist of total comments
-		ArrayList<Comment> totalcomments = new ArrayList<Comment>();
-		//loop through comments
-		for(int i = 0; i < comments.size(); i++){
-			//if comment is not removed
-			if(comments.get(i).getAccountIdentifier() != -1){
-				//add to total array
-				totalcomments.add(comments.get(i));
-			}
+		if (snapshot != null) {
+			return snapshot.commentPostCount;
 		}
 
-		//return the size of the total arraylist
-		int numberOfCommentPosts = totalcomments.size();
-		return numberOfCommentPosts;
+		//live comments are counted by the post index as they are added and removed
+		return postIndex.getCommentPostCount();
 	}
 
 	/**
 	* This method identifies and returns the post with the most number of
-	* endorsements, a.k.a. the most popular post.
+	* endorsements, a.k.a. the most popular post, the lowest ID first on ties.
 	*
 	* @return the ID of the most popular post.
 	*/
 	@Override
     public int getMostEndorsedPost() {
-        int mostEndorsedPost = 0;
-        int mostEndorsedID = 0;
-
-		//Loop through posts and comments to find most endorsed post, update mostEndorsedID based on this
-        for (int index = 0; index < original_posts.size(); index++) {
-            if (original_posts.get(index).getEndorsementCount() > mostEndorsedPost) {
-                mostEndorsedPost = original_posts.get(index).getEndorsementCount();
-                mostEndorsedID = original_posts.get(index).getNumericalIdentifier();
-            }
-        }
-        for (int index = 0; index < comments.size(); index++) {
-            if (comments.get(index).getEndorsementCount() > mostEndorsedPost) {
-                mostEndorsedPost = comments.get(index).getEndorsementCount();
-                mostEndorsedID = comments.get(index).getNumericalIdentifier();
-            }
-        }
+		materialize();
 
-        return mostEndorsedID;
+		//posts are ranked as they are endorsed, 0 if no post has any endorsements
+		return postRanking.top();
     }
 
 	/**
 	* This method identifies and returns the account with the most number of
-	* endorsements, a.k.a. the most popular account.
+	* endorsements, a.k.a. the most popular account, the lowest ID first on ties.
 	*
 	* @return the ID of the most popular account.
 	*/
 	@Override
 	public int getMostEndorsedAccount() {
+		materialize();
 
-		//create max variables to store current maximums
-		int maxEndorsements = accounts.get(0).getEndorsementCount();
-		int mostEndorsed = accounts.get(0).getNumericalIdentifier();
+		//accounts are ranked as their posts are endorsed
+		int mostEndorsed = accountRanking.top();
 
-		//loop through accounts
-		for(int i = 0; i < accounts.size(); i++){
-			//if endorsementcount exceeds current maximum
-			if(accounts.get(i).getEndorsementCount() > maxEndorsements){
-				maxEndorsements = accounts.get(i).getEndorsementCount();
-				mostEndorsed = accounts.get(i).getNumericalIdentifier();
+		//if nothing has been endorsed, fall back to the first account in id order
+		for(int i = 1; mostEndorsed == 0 && i <= accID; i++){
+			if(accountsByID[i] != null){
+				mostEndorsed = accountsByID[i].getNumericalIdentifier();
 			}
 		}
 		
 		return mostEndorsed;
 	}
 
+	/**
+	* This method returns the most endorsed posts, most endorsed first. Posts with
+	* the same number of endorsements are ordered by lowest ID first. Posts without
+	* endorsements are not included.
+	*
+	* @param k the most posts to return.
+	* @return the IDs of up to k most popular posts.
+	* @throws IllegalArgumentException if k is negative.
+	*/
+	public int[] getMostEndorsedPosts(int k) {
+		materialize();
+		return postRanking.top(k);
+	}
+
+	/**
+	* This method returns the most endorsed accounts, most endorsed first. Accounts
+	* with the same number of endorsements are ordered by lowest ID first. Accounts
+	* without endorsements are not included.
+	*
+	* @param k the most accounts to return.
+	* @return the IDs of up to k most popular accounts.
+	* @throws IllegalArgumentException if k is negative.
+	*/
+	public int[] getMostEndorsedAccounts(int k) {
+		materialize();
+		return accountRanking.top(k);
+	}
+
 		// End Analytics-related methods ****************************************
 
 
@@ -1080,19 +1177,30 @@ public class SocialMedia implements SocialMediaPlatform {
 	@Override
     public void erasePlatform() {
 
-		//clear arraylists
-        accounts.clear();
-        original_posts.clear();
-        comments.clear();
-        endorsements.clear();
+		//stop reading from a mapped snapshot
+		unmap();
+
+		//clear arraylists and account indexes
+        accountsByHandle.clear();
+        accountsByID = new Account[16];
+        postsByAccount = new IntList[16];
+        postStore.clear();
+        postIndex.clear();
+        postRanking.clear();
+        accountRanking.clear();
 
 		//reset id counters
         accID=0;
         postID=0;
+
+		//with everything gone, no delta could follow the last snapshot
+		followSnapshot(0);
     }
 	/**
-	* Method saves this SocialMediaPlatform’s contents into a serialised file, with
-	* the filename given in the argument.
+	* Method saves this SocialMediaPlatform’s contents into a binary snapshot file,
+	* with the filename given in the argument and ".ser" added. The file holds the
+	* ID counters as well as the accounts and posts, and replaces any earlier file
+	* only once it has been written completely.
 	*
 	* @param filename location of the file to be saved
 	* @throws IOException if there is a problem experienced when trying to save the
@@ -1100,90 +1208,494 @@ public class SocialMedia implements SocialMediaPlatform {
 	*/
 	@Override
 	public void savePlatform(String filename) throws IOException {
+		materialize();
+		PlatformImage image = capture();
 		try {
-			//create output streams
-            FileOutputStream fileOutputStream = new FileOutputStream(filename+".ser");
-            ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
-
-			//write all objects into the stream (arrays containing data)
-            objectOutputStream.writeObject(accounts);
-			objectOutputStream.writeObject(original_posts);
-			objectOutputStream.writeObject(comments);
-			objectOutputStream.writeObject(endorsements);
-
-			//empty and close output stream
-            objectOutputStream.flush();
-            objectOutputStream.close();
+			SnapshotWriter.writeFile(filename+".ser", image, snapshotCompression);
         } catch (IOException ioE) { //catch exception
             throw new IOException("Input Output exception");
         }
+		followSnapshot(image.snapshotId);
+	}
+
+	/**
+	* Saves what has changed in this SocialMediaPlatform since it was last saved
+	* or loaded into a delta snapshot file, with the filename given in the
+	* argument and ".ser" added: the accounts and posts created or changed since
+	* then, and the IDs of those removed. Saving a delta costs time and space for
+	* the changes only, however large the platform.
+	* <p>
+	* The delta follows the snapshot, full or delta, that the platform was last
+	* saved to or loaded from, which must be the one at base. Later deltas then
+	* follow this one. If a snapshot saved by savePlatformAsync is still being
+	* written, this waits for it first, and the delta follows it only if it was
+	* written. The chain is read back with
+	* {@link #loadPlatformChain(String, List)}, and merged into one full snapshot
+	* with {@link #compactPlatform(String, List, String)}.
+	*
+	* @param base location of the snapshot the delta follows
+	* @param filename location of the delta to be saved
+	* @throws IOException if base is not the snapshot the platform was last saved
+	* to or loaded from, or there is a problem experienced when trying to save the
+	* delta to the file
+	*/
+	public void savePlatformDelta(String base, String filename) throws IOException {
+		materialize();
+		settleSave(true);
+		if (snapshotId == 0 || SnapshotReader.readSnapshotId(base + ".ser") != snapshotId) {
+			throw new IOException("The platform was not last saved to or loaded from " + base + ", so a delta cannot follow it!");
+		}
+		PlatformImage image = new PlatformImage();
+		image.accountCounter = accID;
+		image.postCounter = postID;
+		image.baseId = snapshotId;
+		for (int id = dirtyAccounts.nextSetBit(0); id >= 0; id = dirtyAccounts.nextSetBit(id + 1)) {
+			Account account = accountByID(id);
+			if (account != null) {
+				image.addAccount(id, account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+			} else {
+				image.addRemovedAccount(id);
+			}
+		}
+		for (int id = dirtyPosts.nextSetBit(0); id >= 0; id = dirtyPosts.nextSetBit(id + 1)) {
+			byte kind = postIndex.kindOf(id);
+			if (kind != PostIndex.REMOVED) {
+				image.addPost(id, kind, postStore.accountOf(id), postIndex.parentOf(id), postStore.messageOf(id));
+			} else {
+				image.addRemovedPost(id);
+			}
+		}
+		try {
+			SnapshotWriter.writeFile(filename+".ser", image, snapshotCompression);
+		} catch (IOException ioE) { //catch exception
+			throw new IOException("Input Output exception");
+		}
+		followSnapshot(image.snapshotId);
+	}
+
+	/**
+	* Saves this SocialMediaPlatform’s contents into a binary snapshot file, as
+	* savePlatform does, writing it on a new thread.
+	*
+	* @param filename location of the file to be saved
+	* @return a future completed with a report of the save once the file is
+	* written, or failed with the IOException that stopped it
+	* @see #savePlatformAsync(String, Executor)
+	*/
+	public CompletableFuture<SaveReport> savePlatformAsync(String filename) {
+		return savePlatformAsync(filename, SNAPSHOT_WRITER);
+	}
+
+	/**
+	* Saves this SocialMediaPlatform’s contents into a binary snapshot file, as
+	* savePlatform does, encoding and writing it on the given executor.
+	* <p>
+	* Before returning, the contents are copied as they are at the time of the
+	* call: the accounts one by one, and the post tables in bulk. This copy is the
+	* only pause in changes to the platform, and the report gives its length.
+	* Changes made afterwards, by this thread or any other using the platform the
+	* usual way, are not in the file.
+	* <p>
+	* Deltas saved afterwards follow this snapshot once it has been written. If it
+	* cannot be written, they follow the snapshot saved or loaded before it, and
+	* hold the changes it would have had.
+	*
+	* @param filename location of the file to be saved
+	* @param executor executor the snapshot is encoded and written on
+	* @return a future completed with a report of the save once the file is
+	* written, or failed with the IOException that stopped it
+	*/
+	public CompletableFuture<SaveReport> savePlatformAsync(String filename, Executor executor) {
+		materialize();
+		settleSave(false);
+		long start = System.nanoTime();
+		int level = snapshotCompression;
+
+		//copy the accounts, which change in place, then the post tables as they are
+		PlatformImage image = new PlatformImage();
+		image.accountCounter = accID;
+		image.postCounter = postID;
+		for (int i = 1; i <= accID && i < accountsByID.length; i++) {
+			Account account = accountsByID[i];
+			if (account != null) {
+				image.addAccount(i, account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+			}
+		}
+		int length = Math.min(postID + 1, postIndex.kinds.length);
+		byte[] kinds = Arrays.copyOf(postIndex.kinds, length);
+		int[] parents = Arrays.copyOf(postIndex.parents, length);
+		PostStore posts = postStore.copy(length);
+		image.snapshotId = SnapshotWriter.newSnapshotId();
+
+		//the changes from here on are tracked against this snapshot, but the base only moves to
+		//it once it is written. an earlier save still being written may fail too, so the bits
+		//it took are kept with these, and the base stays the last one known to be written
+		BitSet accounts = dirtyAccounts;
+		BitSet changedPosts = dirtyPosts;
+		if (pendingSave != null) {
+			accounts.or(pendingAccounts);
+			changedPosts.or(pendingPosts);
+		}
+		dirtyAccounts = new BitSet();
+		dirtyPosts = new BitSet();
+		long pause = System.nanoTime() - start;
+
+		CompletableFuture<SaveReport> save = CompletableFuture.supplyAsync(() -> {
+			for (int id = 1; id < length; id++) {
+				if (kinds[id] != PostIndex.REMOVED) {
+					image.addPost(id, kinds[id], posts.accountOf(id), parents[id], posts.messageOf(id));
+				}
+			}
+			return writeSnapshot(filename, image, start, pause, level);
+		}, executor);
+		pendingSave = save;
+		pendingSnapshotId = image.snapshotId;
+		pendingAccounts = accounts;
+		pendingPosts = changedPosts;
+		return save;
 	}
 
 	/**
 	* Method should load and replace this SocialMediaPlatform’s contents with the
-	* serialised contents stored in the file given in the argument.
+	* contents stored in the file given in the argument, either a binary snapshot
+	* or a file serialised by earlier versions.
 	* <p>
-	* The state of this SocialMediaPlatform’s must be be unchanged if any
-	* exceptions are thrown.
+	* The file is read completely before anything is replaced, so the state of
+	* this SocialMediaPlatform is unchanged if any exceptions are thrown.
 	*
 	* @param filename location of the file to be loaded
 	* @throws IOException if there is a problem experienced when trying
-	11
 	* to load the store contents from the file
 	* @throws ClassNotFoundException if required class files cannot be found when
 	* loading
 	*/
 	@Override
 	public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
-		
-		//empty platform
-		erasePlatform();
-
+		PlatformImage image;
 		try { 
-			//create input streams
-            FileInputStream fileInputStream = new FileInputStream(filename+".ser");
-            ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
-            
-			//create object variables
-			Account accountObject = null;
-			Post postObject = null;
-			Comment commentObject = null;
-			Endorsement endorsementObject = null;
-
-			Object obj = objectInputStream.readObject();
-			//loop through all arrays to save all objects
-			for (int index = 0; index < ((ArrayList<Account>) obj).size(); index++) {
-				accountObject 	= (Account) ((ArrayList<Account>) obj).get(index);
-				accounts.add(accountObject);
-			}
-
-			obj = objectInputStream.readObject();
-			for (int index = 0; index < ((ArrayList<Post>) obj).size(); index++) {
-				postObject 	= (Post) ((ArrayList<Post>) obj).get(index);
-				original_posts.add(postObject);
-			}
-
-			obj = objectInputStream.readObject();
-			for (int index = 0; index < ((ArrayList<Comment>) obj).size(); index++) {
-				commentObject 	= (Comment) ((ArrayList<Comment>) obj).get(index);
-				comments.add(commentObject);
-			}
-
-			obj = objectInputStream.readObject();
-			for (int index = 0; index < ((ArrayList<Endorsement>) obj).size(); index++) {
-				endorsementObject 	= (Endorsement) ((ArrayList<Endorsement>) obj).get(index);
-				endorsements.add(endorsementObject);
-			}
-			
-			//close input stream
-			objectInputStream.close();
+			image = SnapshotReader.readFile(filename+".ser");
         } catch (IOException ioE) { //catch exceptions
             throw new IOException("Input Output exception");
         } catch (ClassNotFoundException cnfE) {
             throw new ClassNotFoundException("File not found exception");
         }
+		restore(image);
+	}
+
+	/**
+	* Method loads and replaces this SocialMediaPlatform’s contents with those of
+	* a full snapshot file followed by the delta snapshot files written after it
+	* by savePlatformDelta, applied in the order given. Each delta must follow the
+	* snapshot before it in the chain. Deltas can then be saved following the last
+	* one.
+	* <p>
+	* The files are read completely before anything is replaced, so the state of
+	* this SocialMediaPlatform is unchanged if any exceptions are thrown.
+	*
+	* @param filename location of the full snapshot
+	* @param deltas locations of the deltas, each following the one before
+	* @throws IOException if a delta does not follow the snapshot before it, or
+	* there is a problem experienced when trying to load the files
+	* @throws ClassNotFoundException if required class files cannot be found when
+	* loading
+	*/
+	public void loadPlatformChain(String filename, List<String> deltas) throws IOException, ClassNotFoundException {
+		restore(SnapshotChain.read(filename+".ser", snapshotFiles(deltas)));
+	}
+
+	/**
+	* Merges a full snapshot file and the delta snapshot files written after it
+	* into one full snapshot file, as loading the chain and saving the platform
+	* would, without a platform. The merged file can stand in for the chain: the
+	* deltas saved after the last delta of the chain can follow it instead.
+	*
+	* @param filename location of the full snapshot
+	* @param deltas locations of the deltas, each following the one before
+	* @param target location of the full snapshot to be written, which may be the
+	* location of the first one
+	* @return a report of the merged snapshot and how long the merge took
+	* @throws IOException if a delta does not follow the snapshot before it, or
+	* there is a problem experienced when trying to read or write the files
+	* @throws ClassNotFoundException if required class files cannot be found when
+	* loading
+	*/
+	public static SaveReport compactPlatform(String filename, List<String> deltas, String target) throws IOException, ClassNotFoundException {
+		return compactPlatform(filename, deltas, target, 0);
+	}
+
+	/**
+	* Merges a full snapshot file and the delta snapshot files written after it
+	* into one full snapshot file, as {@link #compactPlatform(String, List, String)}
+	* does, with its blocks compressed as {@link #setSnapshotCompression(int)}
+	* describes.
+	*
+	* @param filename location of the full snapshot
+	* @param deltas locations of the deltas, each following the one before
+	* @param target location of the full snapshot to be written
+	* @param level compression level from 0, for none, to 9
+	* @return a report of the merged snapshot, how long the merge took and how
+	* well its blocks compressed
+	* @throws IOException if a delta does not follow the snapshot before it, or
+	* there is a problem experienced when trying to read or write the files
+	* @throws ClassNotFoundException if required class files cannot be found when
+	* loading
+	*/
+	public static SaveReport compactPlatform(String filename, List<String> deltas, String target, int level) throws IOException, ClassNotFoundException {
+		checkCompressionLevel(level);
+		return SnapshotChain.compact(filename+".ser", snapshotFiles(deltas), target+".ser", level);
+	}
+
+	/**
+	* Sets how the snapshots this platform saves are compressed, from 0, which
+	* stores them as they are, to 9, as for {@link java.util.zip.Deflater}. Each
+	* block of records is compressed on its own, so blocks are still encoded and
+	* decoded in parallel; higher levels give smaller files for more time spent
+	* saving. The reports of {@link #savePlatformAsync(String, Executor)} give the
+	* compression ratio and throughput reached.
+	* <p>
+	* Compressed snapshots load as any other, but cannot be mapped by
+	* {@link #loadPlatformMapped(String)}, which reads records in place.
+	*
+	* @param level compression level from 0, for none, to 9
+	* @throws IllegalArgumentException if the level is not between 0 and 9
+	*/
+	public void setSnapshotCompression(int level) {
+		checkCompressionLevel(level);
+		snapshotCompression = level;
+	}
+
+	static void checkCompressionLevel(int level) {
+		if (level < 0 || level > 9) {
+			throw new IllegalArgumentException("Snapshot compression level must be between 0 and 9!");
+		}
+	}
+
+	//the files of snapshots saved with the given filenames
+	private static List<String> snapshotFiles(List<String> filenames) {
+		ArrayList<String> files = new ArrayList<String>();
+		for (String filename : filenames) {
+			files.add(filename + ".ser");
+		}
+		return files;
+	}
+
+	//make the platform's deltas follow the snapshot just saved or loaded, which replaces any
+	//background save still being written as the base
+	private void followSnapshot(long id) {
+		snapshotId = id;
+		dirtyAccounts.clear();
+		dirtyPosts.clear();
+		pendingSave = null;
+		pendingAccounts = null;
+		pendingPosts = null;
+	}
+
+	//once the background save has finished, or after waiting for it if asked to, make deltas
+	//follow its snapshot if it was written, or put back the changes it took if not. this runs
+	//on the platform's own thread, so the dirty bits are never changed by the writer
+	private void settleSave(boolean wait) {
+		if (pendingSave == null || (!wait && !pendingSave.isDone())) {
+			return;
+		}
+		try {
+			pendingSave.join();
+			snapshotId = pendingSnapshotId;
+		} catch (CompletionException | CancellationException e) {
+			dirtyAccounts.or(pendingAccounts);
+			dirtyPosts.or(pendingPosts);
+		}
+		pendingSave = null;
+		pendingAccounts = null;
+		pendingPosts = null;
+	}
+
+	/**
+	* Replaces this SocialMediaPlatform’s contents with those of a snapshot file
+	* written by savePlatform, without reading its accounts and posts.
+	* <p>
+	* The file is mapped into memory, and showAccount, showIndividualPost and the
+	* post and account totals are answered straight from it, so this takes the
+	* same time whatever the size of the file. The first call of any other method
+	* decodes the whole file into the platform, as loadPlatform would, before it
+	* runs. The state of this SocialMediaPlatform is unchanged if any exceptions
+	* are thrown.
+	*
+	* @param filename location of the file to be mapped
+	* @throws IOException if the file cannot be mapped or is not a snapshot file
+	* with an index, such as a file saved by earlier versions
+	*/
+	public void loadPlatformMapped(String filename) throws IOException {
+		MappedSnapshot mapped;
+		try {
+			mapped = new MappedSnapshot(filename+".ser");
+		} catch (IOException ioE) { //catch exceptions
+			throw new IOException("Input Output exception");
+		}
+		erasePlatform();
+		snapshot = mapped;
+	}
+
+	//decode a mapped snapshot into the platform before it is changed or fully read
+	private void materialize() {
+		if (snapshot == null) {
+			return;
+		}
+		try {
+			restore(snapshot.read());
+		} catch (IOException ioE) {
+			throw new UncheckedIOException("Mapped snapshot could not be read!", ioE);
+		}
+	}
+
+	//stop reading from a mapped snapshot, if there is one
+	private void unmap() {
+		if (snapshot == null) {
+			return;
+		}
+		try {
+			snapshot.close();
+		} catch (IOException ioE) { //the mapping stays readable, so there is nothing to undo
+		}
+		snapshot = null;
+	}
+
+	//runs each background save on a thread of its own, which is not a daemon, so the program
+	//does not exit halfway through writing a file
+	static final Executor SNAPSHOT_WRITER = task -> new Thread(task, "snapshot-writer").start();
+
+	//write an image copied for a background save, failing with the IOException that stops it
+	static SaveReport writeSnapshot(String filename, PlatformImage image, long start, long pause, int level) {
+		try {
+			SnapshotWriter writer = SnapshotWriter.writeFile(filename + ".ser", image, level);
+			long bytes = Files.size(Paths.get(filename + ".ser"));
+			return new SaveReport(filename, pause, System.nanoTime() - start, image, bytes, writer);
+		} catch (IOException ioE) {
+			throw new CompletionException(ioE);
+		}
+	}
+
+	/**
+	* Copies this platform's accounts, posts and ID counters into an image, as
+	* written to snapshot files.
+	*
+	* @return an image of the platform, which later changes do not affect.
+	*/
+	public PlatformImage capture() {
+		materialize();
+		PlatformImage image = new PlatformImage();
+		image.accountCounter = accID;
+		image.postCounter = postID;
+		for (int i = 1; i <= accID && i < accountsByID.length; i++) {
+			Account account = accountsByID[i];
+			if (account != null) {
+				image.addAccount(i, account.getHandle(), account.getDescriptionField(), account.getPostCount(), account.getEndorsementCount());
+			}
+		}
+		for (int id = 1; id <= postID; id++) {
+			byte kind = postIndex.kindOf(id);
+			if (kind != PostIndex.REMOVED) {
+				image.addPost(id, kind, postStore.accountOf(id), postIndex.parentOf(id), postStore.messageOf(id));
+			}
+		}
+		return image;
+	}
+
+	/**
+	* Replaces this platform's contents with those of an image, such as one read
+	* from a snapshot file.
+	*
+	* @param image accounts, posts and ID counters to take on. Its posts must be
+	* in ID order.
+	*/
+	public void restore(PlatformImage image) {
+		erasePlatform();
+		for (int i = 0; i < image.accountCount; i++) {
+			Account account = new Account(image.accountIds[i], image.handles[i], image.descriptions[i]);
+			account.postCount = image.postCounts[i];
+			account.endorsementCount = image.endorsementCounts[i];
+			indexAccount(account);
+			accID = Math.max(accID, account.getNumericalIdentifier());
+		}
+		//store the posts in id order, so each child list stays sorted
+		for (int i = 0; i < image.postCount; i++) {
+			storePost(image.postIds[i], image.kinds[i], image.authors[i], image.parents[i], image.messages[i]);
+			postID = image.postIds[i];
+		}
+		//carry on from the saved counters, which may be above every live id
+		accID = Math.max(accID, image.accountCounter);
+		postID = Math.max(postID, image.postCounter);
+		rankEndorsements();
+		followSnapshot(image.snapshotId);
 	}
 
 		// End Management-related methods ****************************************
 
+
+		// Index-related methods ****************************************
+
+	//store a new post and add it to the post index and its author's posts
+	private void storePost(int id, byte kind, int accountID, int parent, String message) {
+		postStore.add(id, kind, accountID, parent, message);
+		postIndex.add(id, kind, parent);
+		dirtyPosts.set(id);
+		if (accountByID(accountID) != null) {
+			postsByAccount[accountID].add(id);
+		}
+	}
+
+	//rank loaded posts and accounts by replaying their endorsements. ties are broken by lowest
+	//id, so the order they are replayed in does not change the ranking
+	void rankEndorsements() {
+		postRanking.clear();
+		accountRanking.clear();
+		for (int id = 1; id <= postID; id++) {
+			if (postIndex.kindOf(id) == PostIndex.ENDORSEMENT) {
+				postRanking.increase(postIndex.parentOf(id));
+			}
+		}
+		for (int i = 1; i <= accID; i++) {
+			if (accountByID(i) != null) {
+				for (int j = 0; j < accountsByID[i].getEndorsementCount(); j++) {
+					accountRanking.increase(i);
+				}
+			}
+		}
+	}
+
+	//look up a live account by id, or null if none matches
+	Account accountByID(int id) {
+		if (id <= 0 || id >= accountsByID.length) {
+			return null;
+		}
+		return accountsByID[id];
+	}
+
+	//add an account to the handle and id indexes, growing the id table as needed
+	void indexAccount(Account account) {
+		int id = account.getNumericalIdentifier();
+		if (id >= accountsByID.length) {
+			int length = Math.max(id + 1, accountsByID.length * 2);
+			Account[] grown = new Account[length];
+			System.arraycopy(accountsByID, 0, grown, 0, accountsByID.length);
+			accountsByID = grown;
+			IntList[] grownPosts = new IntList[length];
+			System.arraycopy(postsByAccount, 0, grownPosts, 0, postsByAccount.length);
+			postsByAccount = grownPosts;
+		}
+		accountsByID[id] = account;
+		postsByAccount[id] = new IntList();
+		accountsByHandle.put(account.getHandle(), account);
+		dirtyAccounts.set(id);
+	}
+
+	//remove an account from the handle and id indexes
+	void unindexAccount(Account account) {
+		accountsByID[account.getNumericalIdentifier()] = null;
+		postsByAccount[account.getNumericalIdentifier()] = null;
+		accountsByHandle.remove(account.getHandle());
+		dirtyAccounts.set(account.getNumericalIdentifier());
+	}
+
+		// End Index-related methods ****************************************
+
 }
\ No newline at end of file
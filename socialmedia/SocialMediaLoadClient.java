@@ -0,0 +1,149 @@
+package socialmedia;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * SocialMediaLoadClient drives a running SocialMediaServer with many concurrent
+ * clients and reports the throughput and latency it sees.
+ * <p>
+ * It first creates the given number of accounts and one post per account. Each
+ * client then sends requests back to back over kept-alive connections for the
+ * given time: about half read posts or accounts, and the rest create posts,
+ * endorse or comment on random existing ones. Requests answered with an error
+ * status, such as endorsing an endorsement, are counted separately.
+ * <p>
+ * Usage: <code>java socialmedia.SocialMediaLoadClient [url] [clients] [seconds]
+ * [accounts]</code>, by default <code>http://127.0.0.1:8080/ 256 10 1000</code>.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class SocialMediaLoadClient {
+
+	/**
+	* Runs the load test and prints its results.
+	*
+	* @param args the server url, number of clients, seconds to run for and number
+	* of accounts.
+	* @throws Exception if the server cannot be set up for the test.
+	*/
+	public static void main(String[] args) throws Exception {
+		String url = args.length > 0 ? args[0] : "http://127.0.0.1:8080/";
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int accounts = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+		ExecutorService executor = SocialMediaServer.requestExecutor();
+		HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.executor(executor)
+				.build();
+
+		//set up accounts and posts to act on, with handles unlikely to be taken already
+		String prefix = "load" + Long.toString(System.nanoTime(), 36);
+		int firstPost = Integer.MAX_VALUE;
+		for (int i = 0; i < accounts; i++) {
+			send(client, url, "POST", "createAccount", "handle", prefix + i);
+			HttpResponse<String> post = send(client, url, "POST", "createPost", "handle", prefix + i, "message", "post " + i);
+			firstPost = Math.min(firstPost, Integer.parseInt(post.body()));
+		}
+		AtomicInteger lastPost = new AtomicInteger(firstPost + accounts - 1);
+
+		//each client records the latency of every request it makes, in microseconds
+		long end = System.nanoTime() + seconds * 1000000000L;
+		final int lowestPost = firstPost;
+		ArrayList<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		AtomicInteger failed = new AtomicInteger();
+		for (int c = 0; c < clients; c++) {
+			final long seed = c;
+			results.add(executor.submit(() -> {
+				Random random = new Random(seed);
+				long[] latencies = new long[1024];
+				int count = 0;
+				while (System.nanoTime() < end) {
+					String handle = prefix + random.nextInt(accounts);
+					String id = String.valueOf(lowestPost + random.nextInt(lastPost.get() - lowestPost + 1));
+					int kind = random.nextInt(10);
+					long start = System.nanoTime();
+					HttpResponse<String> response;
+					if (kind < 4) {
+						response = send(client, url, "GET", "showIndividualPost", "id", id);
+					} else if (kind < 5) {
+						response = send(client, url, "GET", "showAccount", "handle", handle);
+					} else if (kind < 7) {
+						response = send(client, url, "POST", "createPost", "handle", handle, "message", "load test");
+					} else if (kind < 9) {
+						response = send(client, url, "POST", "endorsePost", "handle", handle, "id", id);
+					} else {
+						response = send(client, url, "POST", "commentPost", "handle", handle, "id", id, "message", "reply");
+					}
+					if (response.statusCode() != 200) {
+						failed.incrementAndGet();
+					} else if (kind >= 5) {
+						lastPost.accumulateAndGet(Integer.parseInt(response.body()), Math::max);
+					}
+					if (count == latencies.length) {
+						latencies = Arrays.copyOf(latencies, count * 2);
+					}
+					latencies[count] = (System.nanoTime() - start) / 1000;
+					count++;
+				}
+				return Arrays.copyOf(latencies, count);
+			}));
+		}
+
+		//merge the latencies of every client
+		long[] all = new long[0];
+		for (Future<long[]> result : results) {
+			long[] latencies = result.get();
+			int length = all.length;
+			all = Arrays.copyOf(all, length + latencies.length);
+			System.arraycopy(latencies, 0, all, length, latencies.length);
+		}
+		executor.shutdown();
+		Arrays.sort(all);
+		System.out.println(all.length + " requests from " + clients + " clients in " + seconds + " s, " + failed.get() + " answered with an error");
+		System.out.println("throughput " + all.length / seconds + " requests/s");
+		if (all.length > 0) {
+			System.out.println("latency p50 " + percentile(all, 0.5) + " us, p99 " + percentile(all, 0.99) + " us, p99.9 " + percentile(all, 0.999) + " us, max " + all[all.length - 1] + " us");
+		}
+	}
+
+	//send one request with its arguments given as name, value pairs
+	private static HttpResponse<String> send(HttpClient client, String url, String method, String operation, String... arguments) throws Exception {
+		StringBuilder form = new StringBuilder();
+		for (int i = 0; i < arguments.length; i += 2) {
+			if (i > 0) {
+				form.append('&');
+			}
+			form.append(arguments[i]).append('=').append(URLEncoder.encode(arguments[i + 1], StandardCharsets.UTF_8));
+		}
+		HttpRequest.Builder request;
+		if (method.equals("GET")) {
+			request = HttpRequest.newBuilder(URI.create(url + operation + "?" + form)).GET();
+		} else {
+			request = HttpRequest.newBuilder(URI.create(url + operation))
+					.header("Content-Type", "application/x-www-form-urlencoded")
+					.POST(HttpRequest.BodyPublishers.ofString(form.toString()));
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static long percentile(long[] sorted, double fraction) {
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+	}
+
+}
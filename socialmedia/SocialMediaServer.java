@@ -0,0 +1,325 @@
+package socialmedia;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * SocialMediaServer serves every operation of a SocialMediaPlatform over HTTP,
+ * using only the HTTP server bundled with the JDK.
+ * <p>
+ * Each operation has its own path, named after the method, such as
+ * <code>/createPost</code> or <code>/showIndividualPost</code>. Arguments are
+ * given by name, in the query string or as a form-encoded body:
+ *
+ * <pre>
+ * POST /createAccount       handle, description (optional)
+ * POST /removeAccount       handle or id
+ * POST /changeAccountHandle oldHandle, newHandle
+ * POST /updateAccountDescription handle, description
+ * GET  /showAccount         handle
+ * POST /createPost          handle, message
+ * POST /endorsePost         handle, id
+ * POST /commentPost         handle, id, message
+ * POST /deletePost          id
+ * GET  /showIndividualPost  id
+ * GET  /showPostChildrenDetails id
+ * GET  /getNumberOfAccounts, /getTotalOriginalPosts, /getTotalEndorsmentPosts,
+ *      /getTotalCommentPosts, /getMostEndorsedPost, /getMostEndorsedAccount
+ * POST /erasePlatform
+ * POST /savePlatform        filename
+ * POST /loadPlatform        filename
+ * </pre>
+ *
+ * The result is returned as plain text: the new ID, the formatted account or
+ * post, the number asked for, or nothing. Failures are returned with their
+ * message and a status code for the exception: 404 when a handle, account ID or
+ * post ID is not recognised, 409 for a handle already in use, 400 for an
+ * invalid handle, message or argument, 422 for an endorsement post that cannot
+ * be acted on, and 500 when the platform cannot be saved or loaded.
+ * <p>
+ * Snapshots are saved to and loaded from the snapshot directory given to the
+ * server only. The filename must be a path relative to it, and a filename that
+ * is absolute or contains <code>..</code> is refused with status 400.
+ * <p>
+ * Each request is handled on its own virtual thread when the Java runtime has
+ * them, and otherwise on a cached thread pool. Connections are kept alive
+ * between requests, and requests sent one after another on a connection
+ * without waiting for replies are answered in order. The platform is shared by
+ * every request, so it must be thread-safe, as ConcurrentSocialMedia is.
+ * <p>
+ * The JDK server keeps only 200 idle connections alive unless the system
+ * property <code>sun.net.httpserver.maxIdleConnections</code> is set before the
+ * first server is created. {@link #main} raises it; a program creating its own
+ * server for many clients should be started with
+ * <code>-Dsun.net.httpserver.maxIdleConnections=65536</code>.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class SocialMediaServer {
+
+	final SocialMediaPlatform platform;
+	final Path snapshotDirectory;
+	final HttpServer server;
+	final ExecutorService executor;
+
+	/**
+	* Creates a server for the given platform, listening on the given address once
+	* started.
+	*
+	* @param platform thread-safe platform the requests are run on.
+	* @param address address to listen on, such as port 8080 on the loopback address.
+	* @param backlog most connections waiting to be accepted, 0 for the system default.
+	* @param snapshotDirectory directory that savePlatform and loadPlatform
+	* requests are confined to.
+	* @throws IOException if the address cannot be listened on.
+	*/
+	public SocialMediaServer(SocialMediaPlatform platform, InetSocketAddress address, int backlog, Path snapshotDirectory) throws IOException {
+		this.platform = platform;
+		this.snapshotDirectory = snapshotDirectory.toAbsolutePath().normalize();
+		server = HttpServer.create(address, backlog);
+		executor = requestExecutor();
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+	}
+
+	/**
+	* Starts serving requests.
+	*/
+	public void start() {
+		server.start();
+	}
+
+	/**
+	* Stops serving requests, waiting up to the given time for those in progress.
+	*
+	* @param delay most seconds to wait for requests in progress.
+	*/
+	public void stop(int delay) {
+		server.stop(delay);
+		executor.shutdown();
+	}
+
+	/**
+	* @return the address the server listens on, with the port chosen if 0 was given.
+	*/
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	* Serves an empty ConcurrentSocialMedia on the loopback address.
+	*
+	* @param args the port to listen on, 8080 if not given, and the directory to
+	* keep snapshots in, the working directory if not given.
+	* @throws IOException if the port cannot be listened on.
+	*/
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		Path snapshots = Paths.get(args.length > 1 ? args[1] : "");
+
+		//the JDK server keeps only 200 idle connections alive unless told otherwise, which must
+		//be set before the first server reads its configuration
+		if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+			System.setProperty("sun.net.httpserver.maxIdleConnections", "65536");
+		}
+		SocialMediaServer server = new SocialMediaServer(new ConcurrentSocialMedia(), new InetSocketAddress("127.0.0.1", port), 4096, snapshots);
+		server.start();
+		System.out.println("Serving on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/");
+	}
+
+	//a virtual thread per request where the runtime has them, looked up by name so the server
+	//still runs on older runtimes
+	static ExecutorService requestExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException roE) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	//run one request and send its result or failure
+	private void handle(HttpExchange exchange) throws IOException {
+		int status;
+		String body;
+		try {
+			HashMap<String, String> arguments = readArguments(exchange);
+			String operation = exchange.getRequestURI().getPath().substring(1);
+			boolean query = operation.startsWith("show") || operation.startsWith("get");
+			if (query != exchange.getRequestMethod().equals("GET")) {
+				status = 405;
+				body = operation + " needs a " + (query ? "GET" : "POST") + " request!";
+			} else {
+				body = run(operation, arguments);
+				status = body == null ? 404 : 200;
+				if (body == null) {
+					body = "No operation is called " + operation + "!";
+				}
+			}
+		} catch (HandleNotRecognisedException | AccountIDNotRecognisedException | PostIDNotRecognisedException notFound) {
+			status = 404;
+			body = notFound.getMessage();
+		} catch (IllegalHandleException inUse) {
+			status = 409;
+			body = inUse.getMessage();
+		} catch (InvalidHandleException | InvalidPostException | IllegalArgumentException invalid) {
+			status = 400;
+			body = invalid.getMessage();
+		} catch (NotActionablePostException notActionable) {
+			status = 422;
+			body = notActionable.getMessage();
+		} catch (IOException | ClassNotFoundException failed) {
+			status = 500;
+			body = failed.getMessage();
+		} catch (Exception unexpected) {
+			status = 500;
+			body = unexpected.toString();
+		}
+
+		//always send a length, so the connection can be kept alive for the next request
+		byte[] bytes = String.valueOf(body).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	//run the named operation, returning its result as text, or null if there is no such operation
+	private String run(String operation, HashMap<String, String> arguments) throws Exception {
+		switch (operation) {
+			case "createAccount":
+				if (arguments.containsKey("description")) {
+					return String.valueOf(platform.createAccount(argument(arguments, "handle"), argument(arguments, "description")));
+				}
+				return String.valueOf(platform.createAccount(argument(arguments, "handle")));
+			case "removeAccount":
+				if (arguments.containsKey("id")) {
+					platform.removeAccount(number(arguments, "id"));
+				} else {
+					platform.removeAccount(argument(arguments, "handle"));
+				}
+				return "";
+			case "changeAccountHandle":
+				platform.changeAccountHandle(argument(arguments, "oldHandle"), argument(arguments, "newHandle"));
+				return "";
+			case "updateAccountDescription":
+				platform.updateAccountDescription(argument(arguments, "handle"), argument(arguments, "description"));
+				return "";
+			case "showAccount":
+				return platform.showAccount(argument(arguments, "handle"));
+			case "createPost":
+				return String.valueOf(platform.createPost(argument(arguments, "handle"), argument(arguments, "message")));
+			case "endorsePost":
+				return String.valueOf(platform.endorsePost(argument(arguments, "handle"), number(arguments, "id")));
+			case "commentPost":
+				return String.valueOf(platform.commentPost(argument(arguments, "handle"), number(arguments, "id"), argument(arguments, "message")));
+			case "deletePost":
+				platform.deletePost(number(arguments, "id"));
+				return "";
+			case "showIndividualPost":
+				return platform.showIndividualPost(number(arguments, "id"));
+			case "showPostChildrenDetails":
+				return platform.showPostChildrenDetails(number(arguments, "id")).toString();
+			case "getNumberOfAccounts":
+				return String.valueOf(platform.getNumberOfAccounts());
+			case "getTotalOriginalPosts":
+				return String.valueOf(platform.getTotalOriginalPosts());
+			case "getTotalEndorsmentPosts":
+				return String.valueOf(platform.getTotalEndorsmentPosts());
+			case "getTotalCommentPosts":
+				return String.valueOf(platform.getTotalCommentPosts());
+			case "getMostEndorsedPost":
+				return String.valueOf(platform.getMostEndorsedPost());
+			case "getMostEndorsedAccount":
+				return String.valueOf(platform.getMostEndorsedAccount());
+			case "erasePlatform":
+				platform.erasePlatform();
+				return "";
+			case "savePlatform":
+				platform.savePlatform(snapshotFile(arguments));
+				return "";
+			case "loadPlatform":
+				platform.loadPlatform(snapshotFile(arguments));
+				return "";
+			default:
+				return null;
+		}
+	}
+
+	//arguments from the query string and a form-encoded body, the body winning on repeats
+	private static HashMap<String, String> readArguments(HttpExchange exchange) throws IOException {
+		HashMap<String, String> arguments = new HashMap<String, String>();
+		addArguments(arguments, exchange.getRequestURI().getRawQuery());
+		InputStream in = exchange.getRequestBody();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			body.write(buffer, 0, read);
+		}
+		in.close();
+		addArguments(arguments, body.toString(StandardCharsets.UTF_8));
+		return arguments;
+	}
+
+	private static void addArguments(HashMap<String, String> arguments, String encoded) {
+		if (encoded == null || encoded.isEmpty()) {
+			return;
+		}
+		for (String pair : encoded.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				arguments.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+			} else if (!pair.isEmpty()) {
+				arguments.put(URLDecoder.decode(pair, StandardCharsets.UTF_8), "");
+			}
+		}
+	}
+
+	private static String argument(HashMap<String, String> arguments, String name) {
+		String value = arguments.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing argument " + name + "!");
+		}
+		return value;
+	}
+
+	//the filename argument resolved within the snapshot directory, refusing any that could
+	//reach outside it
+	private String snapshotFile(HashMap<String, String> arguments) {
+		String filename = argument(arguments, "filename");
+		Path relative = Paths.get(filename);
+		boolean outside = filename.isEmpty() || relative.isAbsolute() || relative.getRoot() != null;
+		for (Path name : relative) {
+			outside |= name.toString().equals("..");
+		}
+		Path resolved = snapshotDirectory.resolve(relative).normalize();
+		if (outside || !resolved.startsWith(snapshotDirectory) || resolved.equals(snapshotDirectory)) {
+			throw new IllegalArgumentException("Snapshot filename must be a path within the snapshot directory!");
+		}
+		return resolved.toString();
+	}
+
+	private static int number(HashMap<String, String> arguments, String name) {
+		try {
+			return Integer.parseInt(argument(arguments, name));
+		} catch (NumberFormatException nfE) {
+			throw new IllegalArgumentException("Argument " + name + " must be a whole number!");
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+package socialmedia;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * WorkloadDriver runs a mix of operations against a SocialMediaPlatform from
+ * many threads at once for a fixed time, and reports the throughput and latency
+ * of each operation.
+ * <p>
+ * The accounts and posts acted on are picked by a {@link WorkloadGenerator}
+ * that has populated the platform: accounts by their Zipf-distributed activity,
+ * and posts by how much attention they have had. A fifth of endorsements go to
+ * posts that went viral. Posts deleted during the run are not forgotten, so
+ * later operations on them fail, and are counted as failed.
+ * <p>
+ * The mix is given as operation names with weights, such as
+ * <code>showIndividualPost=60,createPost=30,endorsePost=10</code>. The
+ * operations are createPost, endorsePost, commentPost, deletePost,
+ * showIndividualPost, showPostChildrenDetails, showAccount,
+ * updateAccountDescription, getMostEndorsedPost and getMostEndorsedAccount.
+ * <p>
+ * A platform that is not thread-safe is run with one operation at a time, so
+ * the latencies then include the wait for the others, as they would behind a
+ * single lock in a server.
+ * <p>
+ * Usage: <code>java socialmedia.WorkloadDriver [platform] [threads] [seconds]
+ * [accounts] [posts] [mix]</code>, where platform is objects, columnar or
+ * concurrent; by default <code>concurrent 8 10 10000 1000000</code> with
+ * {@link #DEFAULT_MIX}. Each run is preceded by a two second warm-up.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class WorkloadDriver {
+
+	/** Operations that can be given in a mix. */
+	public static final String[] OPERATIONS = { "createPost", "endorsePost", "commentPost", "deletePost",
+			"showIndividualPost", "showPostChildrenDetails", "showAccount", "updateAccountDescription",
+			"getMostEndorsedPost", "getMostEndorsedAccount" };
+
+	/** Mostly reads, with writes at the rate of a busy platform. */
+	public static final String DEFAULT_MIX = "showIndividualPost=35,showPostChildrenDetails=5,showAccount=10,"
+			+ "createPost=20,commentPost=12,endorsePost=12,deletePost=2,updateAccountDescription=2,"
+			+ "getMostEndorsedPost=1,getMostEndorsedAccount=1";
+
+	//share of endorsements sent to viral posts
+	private static final double VIRAL_SHARE = 0.2;
+
+	private final SocialMediaPlatform platform;
+	private final WorkloadGenerator generator;
+	private final boolean threadSafe;
+	//cumulative weights of the operations, in the order of OPERATIONS
+	private final int[] weights = new int[OPERATIONS.length];
+	//runs so far, so that each run picks different accounts and posts from the last
+	private int runs;
+
+	/**
+	* Creates a driver for a platform populated by a generator.
+	*
+	* @param platform the platform to drive.
+	* @param generator the generator that populated it.
+	* @param mix operation names with weights, separated by commas.
+	* @param threadSafe whether the platform can be called from many threads at
+	* once, as ConcurrentSocialMedia can.
+	* @throws IllegalArgumentException if the mix names an operation not in
+	* {@link #OPERATIONS}, or has no weight in total.
+	*/
+	public WorkloadDriver(SocialMediaPlatform platform, WorkloadGenerator generator, String mix, boolean threadSafe) {
+		this.platform = platform;
+		this.generator = generator;
+		this.threadSafe = threadSafe;
+
+		int[] mixed = new int[OPERATIONS.length];
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.trim().split("=");
+			int operation = indexOf(parts[0]);
+			if (operation < 0 || parts.length != 2) {
+				throw new IllegalArgumentException("Workload operation not recognised!");
+			}
+			mixed[operation] += Integer.parseInt(parts[1]);
+		}
+		int total = 0;
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			total += mixed[i];
+			weights[i] = total;
+		}
+		if (total <= 0) {
+			throw new IllegalArgumentException("Workload mix has no operations!");
+		}
+	}
+
+	/**
+	* Runs the mix from the given number of threads for the given time, and
+	* returns a report of how many times each operation was done, how many
+	* failed, the throughput, and the 50th, 99th and 99.9th percentile and
+	* largest latencies, failed operations included.
+	*
+	* @param threads number of threads calling the platform.
+	* @param seconds time to run for.
+	* @return the report, one line for each operation in the mix and one for all
+	* of them.
+	* @throws InterruptedException if interrupted while waiting for the threads.
+	*/
+	public String run(int threads, double seconds) throws InterruptedException {
+		long end = System.nanoTime() + (long) (seconds * 1000000000L);
+		long run = runs++;
+		Histogram[][] histograms = new Histogram[threads][];
+		long[][] failures = new long[threads][];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			histograms[t] = new Histogram[OPERATIONS.length];
+			failures[t] = new long[OPERATIONS.length];
+			for (int i = 0; i < OPERATIONS.length; i++) {
+				histograms[t][i] = new Histogram();
+			}
+			workers[t] = new Thread(() -> drive(run << 32 | thread, end, histograms[thread], failures[thread]), "workload-" + t);
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		//merge what every thread recorded
+		StringBuilder report = new StringBuilder();
+		Histogram all = new Histogram();
+		long allFailed = 0;
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			Histogram merged = new Histogram();
+			long failed = 0;
+			for (int t = 0; t < threads; t++) {
+				merged.add(histograms[t][i]);
+				failed += failures[t][i];
+			}
+			if (merged.count > 0) {
+				report.append(line(OPERATIONS[i], merged, failed, seconds));
+			}
+			all.add(merged);
+			allFailed += failed;
+		}
+		report.append(line("all", all, allFailed, seconds));
+		return report.toString();
+	}
+
+	//do operations until the end, recording how long each took and whether it failed
+	private void drive(long seed, long end, Histogram[] histograms, long[] failures) {
+		Random random = new Random(seed);
+		int total = weights[weights.length - 1];
+		while (System.nanoTime() < end) {
+			int pick = random.nextInt(total);
+			int operation = 0;
+			while (weights[operation] <= pick) {
+				operation++;
+			}
+			String handle = generator.nextHandle(random);
+			int id = operation == 1 && random.nextDouble() < VIRAL_SHARE ? generator.nextViral(random)
+					: operation == 3 ? generator.nextPost(random) : generator.nextTarget(random);
+
+			long start = System.nanoTime();
+			boolean done;
+			if (threadSafe) {
+				done = perform(operation, handle, id);
+			} else {
+				synchronized (platform) {
+					done = perform(operation, handle, id);
+				}
+			}
+			histograms[operation].record(System.nanoTime() - start);
+			if (!done) {
+				failures[operation]++;
+			}
+		}
+	}
+
+	//do one operation, returning false if the platform refused it
+	private boolean perform(int operation, String handle, int id) {
+		try {
+			switch (operation) {
+			case 0:
+				platform.createPost(handle, "workload post");
+				break;
+			case 1:
+				platform.endorsePost(handle, id);
+				break;
+			case 2:
+				platform.commentPost(handle, id, "workload comment");
+				break;
+			case 3:
+				platform.deletePost(id);
+				break;
+			case 4:
+				platform.showIndividualPost(id);
+				break;
+			case 5:
+				platform.showPostChildrenDetails(id);
+				break;
+			case 6:
+				platform.showAccount(handle);
+				break;
+			case 7:
+				platform.updateAccountDescription(handle, "workload description");
+				break;
+			case 8:
+				platform.getMostEndorsedPost();
+				break;
+			default:
+				platform.getMostEndorsedAccount();
+				break;
+			}
+			return true;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private static String line(String operation, Histogram histogram, long failed, double seconds) {
+		return String.format("%-24s %10d ops %8d failed %10.0f ops/s  p50 %8.1f us  p99 %8.1f us  p99.9 %8.1f us  max %9.1f us%n",
+				operation, histogram.count, failed, histogram.count / seconds, histogram.percentile(0.5) / 1000.0,
+				histogram.percentile(0.99) / 1000.0, histogram.percentile(0.999) / 1000.0, histogram.max / 1000.0);
+	}
+
+	private static int indexOf(String operation) {
+		for (int i = 0; i < OPERATIONS.length; i++) {
+			if (OPERATIONS[i].equals(operation)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	//counts of latencies in nanoseconds, exact below 64 and otherwise in buckets 1/32 of a power
+	//of two wide, so percentiles are within about 3% in fixed space however long the run
+	private static class Histogram {
+
+		private final long[] counts = new long[64 + 58 * 32];
+		private long count;
+		private long max;
+
+		private void record(long nanos) {
+			counts[bucketOf(nanos)]++;
+			count++;
+			max = Math.max(max, nanos);
+		}
+
+		private void add(Histogram other) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += other.counts[i];
+			}
+			count += other.count;
+			max = Math.max(max, other.max);
+		}
+
+		//smallest latency in the bucket holding the given fraction of those recorded
+		private long percentile(double fraction) {
+			long rank = (long) Math.ceil(count * fraction);
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank && seen > 0) {
+					return i < 64 ? i : (long) (i % 32 + 32) << (i / 32 - 1);
+				}
+			}
+			return max;
+		}
+
+		private static int bucketOf(long nanos) {
+			if (nanos < 64) {
+				return (int) Math.max(nanos, 0);
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			return (exponent - 5) * 32 + (int) (nanos >>> (exponent - 5));
+		}
+
+	}
+
+	/**
+	* Populates a platform and drives it, printing the report.
+	*
+	* @param args the platform, number of threads, seconds to run for, number of
+	* accounts and posts, and mix.
+	* @throws Exception if the platform cannot be populated.
+	*/
+	public static void main(String[] args) throws Exception {
+		String type = args.length > 0 ? args[0] : "concurrent";
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int accounts = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+		int posts = args.length > 4 ? Integer.parseInt(args[4]) : 1000000;
+		String mix = args.length > 5 ? args[5] : DEFAULT_MIX;
+
+		SocialMediaPlatform platform;
+		if (type.equals("objects")) {
+			platform = new SocialMedia();
+		} else if (type.equals("columnar")) {
+			platform = new SocialMedia(new ColumnarPostStore());
+		} else if (type.equals("concurrent")) {
+			platform = new ConcurrentSocialMedia();
+		} else {
+			throw new IllegalArgumentException("Platform type not recognised!");
+		}
+
+		//the platforms print a line for every post created, which would swamp the report
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		WorkloadGenerator generator = new WorkloadGenerator(1410);
+		long start = System.nanoTime();
+		generator.populate(platform, accounts, posts);
+		long populated = System.nanoTime() - start;
+		WorkloadDriver driver = new WorkloadDriver(platform, generator, mix, platform instanceof ConcurrentSocialMedia);
+		driver.run(threads, 2);
+		String report = driver.run(threads, seconds);
+		System.setOut(out);
+
+		System.out.println(type + ": " + accounts + " accounts, " + posts + " posts, " + generator.getViralPosts()
+				+ " viral, populated in " + populated / 1000000 + " ms");
+		System.out.println(threads + " threads for " + seconds + " s");
+		System.out.print(report);
+	}
+
+}
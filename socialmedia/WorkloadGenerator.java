@@ -0,0 +1,228 @@
+package socialmedia;
+
+import java.util.Random;
+
+/**
+ * WorkloadGenerator fills a SocialMediaPlatform with accounts and posts shaped
+ * like those of a real platform, then picks the accounts and posts for a
+ * WorkloadDriver to act on in the same way.
+ * <p>
+ * Activity is skewed three ways:
+ * <ul>
+ * <li>Accounts act with Zipf-distributed frequency: the account of rank
+ * <i>r</i> acts in proportion to 1/<i>r</i><sup><i>s</i></sup>, so a few
+ * accounts make most posts.</li>
+ * <li>Comments and endorsements go to posts by preferential attachment: a post
+ * is picked in proportion to one plus the comments and endorsements it has
+ * already had. Comments can be commented on in turn, so comment threads grow
+ * into trees whose sizes follow a power law, a few of them very wide and
+ * deep.</li>
+ * <li>Now and then a new original post goes viral, and is endorsed at once by a
+ * burst of accounts whose size follows a Pareto distribution. Viral posts are
+ * kept so that the driver can send more endorsements their way.</li>
+ * </ul>
+ * The same seed and settings always build the same platform.
+ *
+ * @author Victor Smith
+ * @author Jai Telymonde
+ * @version 1.0
+ */
+public class WorkloadGenerator {
+
+	//smallest viral burst, in endorsements
+	private static final int MINIMUM_BURST = 10;
+
+	private final Random random;
+	private final double accountExponent;
+	private final double commentShare;
+	private final double endorsementShare;
+	private final double burstChance;
+	private final double burstExponent;
+
+	private String[] handles = new String[0];
+	//cumulative Zipf weights of the accounts, by rank
+	private double[] accountWeights = new double[0];
+	//original posts and comments, which can be endorsed or commented on
+	private final IntList actionable = new IntList();
+	//each actionable post once, and again for every comment or endorsement it has had
+	private final IntList attachments = new IntList();
+	private final IntList viral = new IntList();
+
+	/**
+	* Creates a generator with the usual settings: Zipf exponent 1.1 for account
+	* activity, 25% comments, 15% endorsements, one original post in 1000 going
+	* viral, and Pareto exponent 1.5 for the size of viral bursts.
+	*
+	* @param seed seed for the random choices made.
+	*/
+	public WorkloadGenerator(long seed) {
+		this(seed, 1.1, 0.25, 0.15, 0.001, 1.5);
+	}
+
+	/**
+	* Creates a generator with the given settings.
+	*
+	* @param seed seed for the random choices made.
+	* @param accountExponent Zipf exponent of account activity, 0 for every
+	* account acting as often as the others.
+	* @param commentShare fraction of posts that are comments.
+	* @param endorsementShare fraction of posts that are endorsements, not
+	* counting those of viral bursts.
+	* @param burstChance chance that an original post goes viral.
+	* @param burstExponent Pareto exponent of the size of viral bursts; the
+	* smaller it is, the larger the largest bursts.
+	* @throws IllegalArgumentException if a setting is out of range.
+	*/
+	public WorkloadGenerator(long seed, double accountExponent, double commentShare, double endorsementShare,
+			double burstChance, double burstExponent) {
+		if (accountExponent < 0 || commentShare < 0 || endorsementShare < 0 || commentShare + endorsementShare >= 1
+				|| burstChance < 0 || burstChance > 1 || burstExponent <= 0) {
+			throw new IllegalArgumentException("Workload settings are out of range!");
+		}
+		this.random = new Random(seed);
+		this.accountExponent = accountExponent;
+		this.commentShare = commentShare;
+		this.endorsementShare = endorsementShare;
+		this.burstChance = burstChance;
+		this.burstExponent = burstExponent;
+	}
+
+	/**
+	* Fills an empty platform with the given number of accounts, with handles
+	* <code>user0</code>, <code>user1</code> and so on in order of activity, and
+	* posts until it holds at least the given number, endorsements of viral
+	* bursts included.
+	*
+	* @param platform an empty platform.
+	* @param accounts number of accounts to create, at least 1.
+	* @param posts number of posts to create.
+	* @throws Exception if the platform refuses an account or post, which an
+	* empty platform does not.
+	*/
+	public void populate(SocialMediaPlatform platform, int accounts, int posts) throws Exception {
+		if (accounts < 1) {
+			throw new IllegalArgumentException("Workload needs at least one account!");
+		}
+		handles = new String[accounts];
+		accountWeights = new double[accounts];
+		double total = 0;
+		for (int i = 0; i < accounts; i++) {
+			handles[i] = "user" + i;
+			platform.createAccount(handles[i], "account " + i);
+			total += Math.pow(i + 1, -accountExponent);
+			accountWeights[i] = total;
+		}
+
+		int created = 0;
+		while (created < posts) {
+			double kind = random.nextDouble();
+			if (actionable.size() == 0 || kind >= commentShare + endorsementShare) {
+				int id = platform.createPost(nextHandle(random), "post " + created);
+				actionable.add(id);
+				attachments.add(id);
+				created++;
+				if (random.nextDouble() < burstChance) {
+					created += burst(platform, id, posts - created);
+				}
+			} else if (kind < commentShare) {
+				int parent = nextTarget(random);
+				int id = platform.commentPost(nextHandle(random), parent, "comment " + created);
+				actionable.add(id);
+				attachments.add(id);
+				attachments.add(parent);
+				created++;
+			} else {
+				int parent = nextTarget(random);
+				platform.endorsePost(nextHandle(random), parent);
+				attachments.add(parent);
+				created++;
+			}
+		}
+	}
+
+	//endorse a post by a Pareto-sized burst of accounts, at most limit, returning how many
+	private int burst(SocialMediaPlatform platform, int id, int limit) throws Exception {
+		double size = MINIMUM_BURST * Math.pow(1 - random.nextDouble(), -1 / burstExponent);
+		int endorsements = (int) Math.min(Math.min(size, handles.length), limit);
+		for (int i = 0; i < endorsements; i++) {
+			platform.endorsePost(nextHandle(random), id);
+			attachments.add(id);
+		}
+		viral.add(id);
+		return endorsements;
+	}
+
+	/**
+	* Picks an account in proportion to its activity.
+	*
+	* @param random source of randomness, one for each thread.
+	* @return the handle of an account created by {@link #populate}.
+	*/
+	public String nextHandle(Random random) {
+		double point = random.nextDouble() * accountWeights[accountWeights.length - 1];
+		int low = 0;
+		int high = accountWeights.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (accountWeights[middle] <= point) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return handles[low];
+	}
+
+	/**
+	* Picks an original post or comment in proportion to one plus the comments
+	* and endorsements it had while the platform was populated.
+	*
+	* @param random source of randomness, one for each thread.
+	* @return the ID of a post created by {@link #populate}.
+	*/
+	public int nextTarget(Random random) {
+		return attachments.get(random.nextInt(attachments.size()));
+	}
+
+	/**
+	* Picks a viral post, or any post by {@link #nextTarget} if none went viral.
+	*
+	* @param random source of randomness, one for each thread.
+	* @return the ID of a post created by {@link #populate}.
+	*/
+	public int nextViral(Random random) {
+		if (viral.size() == 0) {
+			return nextTarget(random);
+		}
+		return viral.get(random.nextInt(viral.size()));
+	}
+
+	/**
+	* Picks an original post or comment, each as likely as the others.
+	*
+	* @param random source of randomness, one for each thread.
+	* @return the ID of a post created by {@link #populate}.
+	*/
+	public int nextPost(Random random) {
+		return actionable.get(random.nextInt(actionable.size()));
+	}
+
+	/**
+	* Returns the number of original posts and comments created.
+	*
+	* @return the number of actionable posts.
+	*/
+	public int getActionablePosts() {
+		return actionable.size();
+	}
+
+	/**
+	* Returns the number of posts that went viral.
+	*
+	* @return the number of viral posts.
+	*/
+	public int getViralPosts() {
+		return viral.size();
+	}
+
+}